@@ -49,6 +49,7 @@ public class SecurityConfig {
                 // RBAC per spec
                 .requestMatchers("/events/**").hasRole("user")
                 .requestMatchers("/drift-check/**").hasRole("auditor")
+                .requestMatchers("/drift-jobs/**").hasRole("auditor")
                 .requestMatchers("/correct/**").hasRole("admin")
                 .requestMatchers("/accounts/**").hasRole("auditor")
                 .anyRequest().authenticated()
@@ -1,14 +1,20 @@
 package com.example.Api_Gateway.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
+import java.util.Set;
 
 /**
  * Proxy controller for Drift and Correction Service
@@ -18,6 +24,9 @@ public class DriftProxyController {
 
     private static final Logger log = LoggerFactory.getLogger(DriftProxyController.class);
 
+    // Hop-by-hop or recomputed headers that must not be copied onto the streamed request
+    private static final Set<String> STREAM_SKIPPED_HEADERS = Set.of("host", "content-length", "transfer-encoding", "connection");
+
     @Value("${services.drift-service}")
     private String driftServiceUrl;
 
@@ -29,7 +38,9 @@ public class DriftProxyController {
 
     @PostMapping("/drift-check")
     public ResponseEntity<?> checkDrift(@RequestBody String body, HttpServletRequest request) {
-        String targetUrl = driftServiceUrl + "/drift-check";
+        // Keeps the optional asOf / asOfEventId cutoff parameters
+        String query = request.getQueryString();
+        String targetUrl = driftServiceUrl + "/drift-check" + (query != null ? "?" + query : "");
 
         log.info("Received POST /drift-check request");
         log.info("Target URL: {}", targetUrl);
@@ -44,7 +55,7 @@ public class DriftProxyController {
 
         try {
             log.info("Forwarding POST /drift-check to {}", targetUrl);
-            ResponseEntity<String> response = restTemplate.exchange(targetUrl, HttpMethod.POST, entity, String.class);
+            ResponseEntity<String> response = restTemplate.exchange(URI.create(targetUrl), HttpMethod.POST, entity, String.class);
             log.info("Drift service responded with status: {}", response.getStatusCode());
             return response;
         } catch (org.springframework.web.client.ResourceAccessException e) {
@@ -66,6 +77,85 @@ public class DriftProxyController {
         }
     }
 
+    /**
+     * Stream a CBS file to the drift service and its NDJSON results back, without
+     * buffering either side in the gateway
+     */
+    @PostMapping("/drift-check/stream")
+    public void checkDriftStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        pipe(URI.create(driftServiceUrl + "/drift-check/stream"), HttpMethod.POST, request, response);
+    }
+
+    /**
+     * Full-book drift check by bucket digest
+     */
+    @PostMapping("/drift-check/digest")
+    public void checkDriftDigest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        pipe(URI.create(driftServiceUrl + "/drift-check/digest"), HttpMethod.POST, request, response);
+    }
+
+    /**
+     * Asynchronous drift jobs: submit (JSON, CSV or NDJSON upload), status and result pages
+     */
+    @RequestMapping(value = {"/drift-jobs", "/drift-jobs/**"}, method = {RequestMethod.GET, RequestMethod.POST})
+    public void driftJobs(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String query = request.getQueryString();
+        URI target = URI.create(driftServiceUrl + request.getRequestURI() + (query != null ? "?" + query : ""));
+        pipe(target, HttpMethod.valueOf(request.getMethod()), request, response);
+    }
+
+    private void pipe(URI target, HttpMethod method, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("Forwarding {} {} to {}", method, request.getRequestURI(), target);
+
+        try {
+            restTemplate.execute(target, method,
+                    clientRequest -> {
+                        Enumeration<String> headerNames = request.getHeaderNames();
+                        while (headerNames.hasMoreElements()) {
+                            String headerName = headerNames.nextElement();
+                            if (!STREAM_SKIPPED_HEADERS.contains(headerName.toLowerCase())) {
+                                clientRequest.getHeaders().add(headerName, request.getHeader(headerName));
+                            }
+                        }
+                        if (method == HttpMethod.POST) {
+                            // getBody() would collect the whole upload in memory before sending;
+                            // setBody writes it to the connection as it is read (chunked)
+                            if (clientRequest instanceof StreamingHttpOutputMessage streaming) {
+                                streaming.setBody(out -> request.getInputStream().transferTo(out));
+                            } else {
+                                request.getInputStream().transferTo(clientRequest.getBody());
+                            }
+                        }
+                    },
+                    clientResponse -> {
+                        response.setStatus(clientResponse.getStatusCode().value());
+                        MediaType contentType = clientResponse.getHeaders().getContentType();
+                        if (contentType != null) {
+                            response.setContentType(contentType.toString());
+                        }
+                        clientResponse.getBody().transferTo(response.getOutputStream());
+                        response.flushBuffer();
+                        return null;
+                    });
+            log.info("Drift service response forwarded for {}", request.getRequestURI());
+        } catch (HttpStatusCodeException e) {
+            log.error("Error from drift service: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+            writeError(response, e.getStatusCode().value(), e.getResponseBodyAsString());
+        } catch (org.springframework.web.client.ResourceAccessException e) {
+            log.error("Cannot connect to drift service at {}: {}", target, e.getMessage());
+            if (!response.isCommitted()) {
+                writeError(response, HttpStatus.BAD_GATEWAY.value(),
+                        "{\"error\":\"Drift service is unavailable. Please ensure it's running on " + driftServiceUrl + "\"}");
+            }
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+    }
+
     @PostMapping("/correct/{accountId}")
     public ResponseEntity<?> applyCorrection(@PathVariable String accountId,
                                             @RequestBody String body,
@@ -30,16 +30,33 @@ public class EventProxyController {
 
     @PostMapping
     public ResponseEntity<?> submitEvent(@RequestBody String body, HttpServletRequest request) {
-        String targetUrl = eventServiceUrl + "/events";
+        log.info("Forwarding POST /events to {} with body: {}", eventServiceUrl + "/events", body);
+        return forward("/events", body, request, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Forward a JSON array or NDJSON batch, keeping the client's content type
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> submitBatch(@RequestBody String body, HttpServletRequest request) {
+        MediaType contentType = request.getContentType() != null
+                ? MediaType.parseMediaType(request.getContentType())
+                : MediaType.APPLICATION_JSON;
+        log.info("Forwarding POST /events/batch to {} ({} chars)", eventServiceUrl + "/events/batch", body.length());
+        return forward("/events/batch", body, request, contentType);
+    }
+
+    private ResponseEntity<?> forward(String path, String body, HttpServletRequest request, MediaType contentType) {
+        String targetUrl = eventServiceUrl + path;
 
         // Forward headers
         HttpHeaders headers = new HttpHeaders();
         copyHeaders(request, headers);
+        headers.setContentType(contentType);
 
         HttpEntity<String> entity = new HttpEntity<>(body, headers);
 
         try {
-            log.info("Forwarding POST /events to {} with body: {}", targetUrl, body);
             ResponseEntity<String> response = restTemplate.exchange(targetUrl, HttpMethod.POST, entity, String.class);
             log.info("Event service responded with status: {}", response.getStatusCode());
             return response;
@@ -70,7 +87,6 @@ public class EventProxyController {
                 headers.add(headerName, request.getHeader(headerName));
             }
         }
-        headers.setContentType(MediaType.APPLICATION_JSON);
     }
 }
 
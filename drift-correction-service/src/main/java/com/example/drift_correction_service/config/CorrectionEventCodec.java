@@ -0,0 +1,103 @@
+package com.example.drift_correction_service.config;
+
+import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.util.Money;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary wire format for correction events on transactions.corrections.
+ *
+ * Layout (version 1):
+ *   byte    version
+ *   byte    flags: 0x01 debit (else credit), 0x02 timestamp present, 0x04 reason present
+ *   varint  eventId length, UTF-8 bytes
+ *   varint  accountId length, UTF-8 bytes
+ *   zigzag  amount in minor units (cents)
+ *   varint  timestamp (if flagged)
+ *   varint  reason length, UTF-8 bytes (if flagged)
+ *
+ * Records are marked with the content-type header so consumers can read JSON and binary
+ * side by side. Must stay in step with LedgerEventCodec in shadow-ledger-service.
+ */
+public final class CorrectionEventCodec {
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    public static final String BINARY_CONTENT_TYPE = "application/x-ledger-event";
+
+    public static final byte VERSION = 1;
+
+    private static final int FLAG_DEBIT = 0x01;
+    private static final int FLAG_TIMESTAMP = 0x02;
+    private static final int FLAG_REASON = 0x04;
+
+    private CorrectionEventCodec() {
+    }
+
+    /**
+     * Replace any content-type header with the given one
+     */
+    public static void setContentType(Headers headers, String contentType) {
+        headers.remove(CONTENT_TYPE_HEADER);
+        headers.add(CONTENT_TYPE_HEADER, contentType.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] encode(CorrectionEvent event) {
+        byte[] eventId = event.getEventId().getBytes(StandardCharsets.UTF_8);
+        byte[] accountId = event.getAccountId().getBytes(StandardCharsets.UTF_8);
+        byte[] reason = event.getReason() == null ? null : event.getReason().getBytes(StandardCharsets.UTF_8);
+        long amountMinor;
+        try {
+            amountMinor = Money.toMinor(event.getAmount());
+        } catch (ArithmeticException e) {
+            throw new SerializationException("Amount is not a whole number of cents: " + event.getAmount(), e);
+        }
+
+        int flags = 0;
+        if ("debit".equals(event.getType())) {
+            flags |= FLAG_DEBIT;
+        } else if (!"credit".equals(event.getType())) {
+            throw new SerializationException("Unsupported event type for binary encoding: " + event.getType());
+        }
+        if (event.getTimestamp() != null) {
+            flags |= FLAG_TIMESTAMP;
+        }
+        if (reason != null) {
+            flags |= FLAG_REASON;
+        }
+
+        // Upper bound: two header bytes plus at most 10 bytes per varint
+        byte[] buffer = new byte[2 + 5 * 10 + eventId.length + accountId.length + (reason == null ? 0 : reason.length)];
+        int position = 0;
+        buffer[position++] = VERSION;
+        buffer[position++] = (byte) flags;
+        position = writeBytes(buffer, position, eventId);
+        position = writeBytes(buffer, position, accountId);
+        position = writeVarLong(buffer, position, (amountMinor << 1) ^ (amountMinor >> 63));
+        if (event.getTimestamp() != null) {
+            position = writeVarLong(buffer, position, event.getTimestamp());
+        }
+        if (reason != null) {
+            position = writeBytes(buffer, position, reason);
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private static int writeBytes(byte[] buffer, int position, byte[] value) {
+        position = writeVarLong(buffer, position, value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        return position + value.length;
+    }
+
+    private static int writeVarLong(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+}
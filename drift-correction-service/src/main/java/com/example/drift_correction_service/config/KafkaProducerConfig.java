@@ -1,6 +1,9 @@
 package com.example.drift_correction_service.config;
 
+import com.example.drift_correction_service.model.CorrectionEvent;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +15,7 @@ import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
 public class KafkaProducerConfig {
@@ -19,6 +23,24 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // json (default) or binary; consumers read both, selected by the content-type header
+    @Value("${ledger.wire-format:json}")
+    private String wireFormat;
+
+    // Bulk runs send many small corrections: wait briefly so they leave in larger compressed batches
+    @Value("${drift.corrections.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${drift.corrections.batch-size:65536}")
+    private int batchSize;
+
+    // Publish each drift run's corrections in one Kafka transaction (see CorrectionPublisher)
+    @Value("${drift.corrections.transactional:false}")
+    private boolean transactional;
+
+    @Value("${drift.instance-id:}")
+    private String instanceId;
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -27,12 +49,48 @@ public class KafkaProducerConfig {
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd");
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        // Retries must not duplicate or reorder corrections for an account
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+        DefaultKafkaProducerFactory<String, Object> factory = "binary".equalsIgnoreCase(wireFormat)
+                ? new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), binarySerializer())
+                : new DefaultKafkaProducerFactory<>(configProps);
+        if (transactional) {
+            String id = instanceId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : instanceId;
+            factory.setTransactionIdPrefix("drift-corrections-" + id + "-");
+        }
+        return factory;
+    }
+
+    private static Serializer<Object> binarySerializer() {
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+        return new Serializer<>() {
+            @Override
+            public byte[] serialize(String topic, Object data) {
+                return data instanceof CorrectionEvent event
+                        ? CorrectionEventCodec.encode(event)
+                        : jsonSerializer.serialize(topic, data);
+            }
+
+            @Override
+            public byte[] serialize(String topic, Headers headers, Object data) {
+                if (!(data instanceof CorrectionEvent event)) {
+                    return jsonSerializer.serialize(topic, headers, data);
+                }
+                CorrectionEventCodec.setContentType(headers, CorrectionEventCodec.BINARY_CONTENT_TYPE);
+                return CorrectionEventCodec.encode(event);
+            }
+        };
     }
 
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+        // Manual corrections, jobs and streams publish outside a run transaction
+        template.setAllowNonTransactional(true);
+        return template;
     }
 }
-
@@ -1,10 +1,14 @@
 package com.example.drift_correction_service.controller;
 
 import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.service.CorrectionCoalescer;
+import com.example.drift_correction_service.service.CorrectionCoalescer.Delivery;
+import com.example.drift_correction_service.service.CorrectionPublisher;
 import com.example.drift_correction_service.service.DriftService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -66,13 +70,24 @@ public class CorrectionController {
                     reason
             );
 
-            driftService.publishCorrectionEvent(correction);
+            // Waits out the coalescing window; the published event may net several corrections
+            Delivery delivery = driftService.publishCorrectionEvent(correction).join();
 
-            log.info("Manual correction published: eventId={}", correction.getEventId());
+            if (CorrectionPublisher.FAILED.equals(delivery.status())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Map.of("error", "Correction could not be published",
+                                "correctionEventId", correction.getEventId()));
+            }
+
+            log.info("Manual correction published: eventId={}, publishedAs={}, status={}",
+                    correction.getEventId(), delivery.correctionEventId(), delivery.status());
 
             return ResponseEntity.ok(Map.of(
-                    "message", "Correction event published",
-                    "correctionEventId", correction.getEventId(),
+                    "message", CorrectionCoalescer.NETTED.equals(delivery.status())
+                            ? "Correction netted to zero with other corrections for the account"
+                            : "Correction event published",
+                    "correctionEventId", delivery.correctionEventId(),
+                    "deliveryStatus", delivery.status(),
                     "accountId", accountId,
                     "type", correction.getType(),
                     "amount", correction.getAmount()
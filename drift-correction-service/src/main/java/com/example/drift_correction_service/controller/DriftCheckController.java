@@ -2,16 +2,31 @@ package com.example.drift_correction_service.controller;
 
 import com.example.drift_correction_service.model.CBSBalanceEntry;
 import com.example.drift_correction_service.model.DriftResult;
-import com.example.drift_correction_service.service.DriftService;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository.AsOf;
+import com.example.drift_correction_service.service.BulkDriftService;
+import com.example.drift_correction_service.service.CbsBalanceReader;
+import com.example.drift_correction_service.service.CorrectionPublisher;
+import com.example.drift_correction_service.service.DigestDriftService;
+import com.example.drift_correction_service.service.DriftStreamService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Controller for drift detection
@@ -22,19 +37,32 @@ public class DriftCheckController {
 
     private static final Logger log = LoggerFactory.getLogger(DriftCheckController.class);
 
-    private final DriftService driftService;
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
 
-    public DriftCheckController(DriftService driftService) {
+    private final BulkDriftService driftService;
+    private final DriftStreamService driftStreamService;
+    private final DigestDriftService digestDriftService;
+
+    public DriftCheckController(BulkDriftService driftService,
+                                DriftStreamService driftStreamService,
+                                DigestDriftService digestDriftService) {
         this.driftService = driftService;
+        this.driftStreamService = driftStreamService;
+        this.digestDriftService = digestDriftService;
     }
 
     /**
-     * POST /drift-check
-     * Accept CBS balance file and compare with shadow ledger
+     * POST /drift-check?asOf={epochMillis}&asOfEventId={eventId}
+     * Accept CBS balance file and compare with shadow ledger. With asOf (the CBS cutoff),
+     * compare against the shadow balance at that (timestamp, eventId) position; without
+     * asOfEventId every event up to the end of that millisecond is included.
      */
     @PostMapping
     public ResponseEntity<?> checkDrift(
             @Valid @RequestBody List<CBSBalanceEntry> cbsBalances,
+            @RequestParam(required = false) Long asOf,
+            @RequestParam(required = false) String asOfEventId,
             @RequestHeader(name = "X-Trace-Id", required = false) String traceId) {
 
         // Set trace ID in MDC for logging
@@ -49,19 +77,31 @@ public class DriftCheckController {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "CBS balance list cannot be empty"));
             }
+            if (asOf == null && asOfEventId != null) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "asOfEventId requires asOf"));
+            }
 
-            List<DriftResult> results = driftService.checkDrift(cbsBalances);
+            List<DriftResult> results = asOf != null
+                    ? driftService.checkDrift(cbsBalances, new AsOf(asOf, asOfEventId))
+                    : driftService.checkDrift(cbsBalances);
 
             long mismatches = results.stream()
                     .filter(r -> "MISMATCH".equals(r.getStatus()))
                     .count();
 
-            log.info("Drift check completed: {} accounts, {} mismatches found",
-                    results.size(), mismatches);
+            long undelivered = results.stream()
+                    .filter(r -> CorrectionPublisher.FAILED.equals(r.getDeliveryStatus())
+                            || CorrectionPublisher.PENDING.equals(r.getDeliveryStatus()))
+                    .count();
+
+            log.info("Drift check completed: {} accounts, {} mismatches found, {} corrections not delivered",
+                    results.size(), mismatches, undelivered);
 
             return ResponseEntity.ok(Map.of(
                     "totalAccounts", results.size(),
                     "mismatches", mismatches,
+                    "undeliveredCorrections", undelivered,
                     "results", results
             ));
 
@@ -73,5 +113,104 @@ public class DriftCheckController {
             MDC.clear();
         }
     }
-}
 
+    /**
+     * POST /drift-check/digest
+     * Compare a full-book CBS balance file, CSV or NDJSON (optionally Content-Encoding: gzip),
+     * by bucket digest; only accounts in buckets that differ from the shadow ledger are
+     * checked and returned. The upload is spooled to a temporary file, since the check reads
+     * it twice.
+     */
+    @PostMapping(value = "/digest", consumes = {CSV, NDJSON})
+    public ResponseEntity<?> checkDriftByDigest(
+            HttpServletRequest request,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader(name = "X-Trace-Id", required = false) String traceId) {
+
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        Path cbsFile = null;
+        try {
+            CbsBalanceReader.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV))
+                    ? CbsBalanceReader.Format.CSV
+                    : CbsBalanceReader.Format.NDJSON;
+            boolean gzip = contentEncoding != null && contentEncoding.toLowerCase().contains("gzip");
+            log.info("Digest drift check requested: format={}, gzip={}", format, gzip);
+
+            cbsFile = Files.createTempFile("cbs-digest-", null);
+            try (InputStream body = request.getInputStream();
+                 InputStream in = gzip ? new GZIPInputStream(body, 64 * 1024) : body) {
+                Files.copy(in, cbsFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            DigestDriftService.Report report = digestDriftService.checkDrift(cbsFile, format);
+            if (report.totalAccounts() == 0) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "CBS balance file cannot be empty"));
+            }
+            return ResponseEntity.ok(report);
+
+        } catch (Exception e) {
+            log.error("Error during digest drift check", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to perform drift check: " + e.getMessage()));
+        } finally {
+            deleteQuietly(cbsFile);
+            MDC.clear();
+        }
+    }
+
+    /**
+     * POST /drift-check/stream
+     * Accept a CBS balance file as CSV or NDJSON (optionally Content-Encoding: gzip) and
+     * stream results back as NDJSON, ending with a summary record
+     */
+    @PostMapping(value = "/stream", consumes = {CSV, NDJSON}, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> checkDriftStream(
+            HttpServletRequest request,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader(name = "X-Trace-Id", required = false) String traceId) throws IOException {
+
+        CbsBalanceReader.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? CbsBalanceReader.Format.CSV
+                : CbsBalanceReader.Format.NDJSON;
+        boolean gzip = contentEncoding != null && contentEncoding.toLowerCase().contains("gzip");
+        InputStream body = request.getInputStream();
+
+        log.info("Streaming drift check requested: format={}, gzip={}, traceId={}", format, gzip, traceId);
+
+        StreamingResponseBody stream = out -> {
+            // Runs on the async executor, so the trace id is set again here
+            if (traceId != null) {
+                MDC.put("X-Trace-Id", traceId);
+            }
+            try (InputStream in = gzip ? new GZIPInputStream(body, 64 * 1024) : body) {
+                driftStreamService.streamDrift(in, format, out);
+            } catch (IOException | RuntimeException e) {
+                log.error("Streaming drift check failed", e);
+                throw e;
+            } finally {
+                MDC.clear();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(stream);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary CBS file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.drift_correction_service.controller;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.DriftJob;
+import com.example.drift_correction_service.repository.DriftJobRepository;
+import com.example.drift_correction_service.service.CbsBalanceReader;
+import com.example.drift_correction_service.service.DriftJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Controller for asynchronous drift-check jobs
+ */
+@RestController
+@RequestMapping("/drift-jobs")
+public class DriftJobController {
+
+    private static final Logger log = LoggerFactory.getLogger(DriftJobController.class);
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final DriftJobService jobService;
+    private final DriftJobRepository jobRepository;
+
+    public DriftJobController(DriftJobService jobService, DriftJobRepository jobRepository) {
+        this.jobService = jobService;
+        this.jobRepository = jobRepository;
+    }
+
+    /**
+     * POST /drift-jobs
+     * Submit a CBS balance list as JSON; returns the job id immediately
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> submit(@RequestBody List<CBSBalanceEntry> cbsBalances,
+                                    @RequestHeader(name = "X-Trace-Id", required = false) String traceId) {
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        try {
+            if (cbsBalances.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "CBS balance list cannot be empty"));
+            }
+            return accepted(jobService.submit(cbsBalances));
+        } catch (Exception e) {
+            log.error("Error submitting drift job", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to submit drift job: " + e.getMessage()));
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * POST /drift-jobs
+     * Submit a CBS balance file as CSV or NDJSON, optionally with Content-Encoding: gzip
+     */
+    @PostMapping(consumes = {CSV, NDJSON})
+    public ResponseEntity<?> submitFile(HttpServletRequest request,
+                                        @RequestHeader(name = HttpHeaders.CONTENT_TYPE) String contentType,
+                                        @RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                        @RequestHeader(name = "X-Trace-Id", required = false) String traceId) {
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        CbsBalanceReader.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? CbsBalanceReader.Format.CSV
+                : CbsBalanceReader.Format.NDJSON;
+        boolean gzip = contentEncoding != null && contentEncoding.toLowerCase().contains("gzip");
+
+        try (InputStream in = gzip ? new GZIPInputStream(request.getInputStream(), 64 * 1024) : request.getInputStream()) {
+            return accepted(jobService.submit(in, format));
+        } catch (Exception e) {
+            log.error("Error submitting drift job file", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to submit drift job: " + e.getMessage()));
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * GET /drift-jobs/{jobId}
+     * Job status and progress
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> status(@PathVariable String jobId) {
+        return jobService.findJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "drift job not found", "jobId", jobId)));
+    }
+
+    /**
+     * GET /drift-jobs/{jobId}/results?after={cursor}&limit=100&status=MISMATCH
+     * Results in input order, one keyset page at a time; pass nextCursor as after for the next page
+     */
+    @GetMapping("/{jobId}/results")
+    public ResponseEntity<?> results(@PathVariable String jobId,
+                                     @RequestParam(defaultValue = "-1") int after,
+                                     @RequestParam(defaultValue = "100") int limit,
+                                     @RequestParam(required = false) String status) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        if (status != null && !status.equals("MATCH") && !status.equals("MISMATCH")) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "status must be 'MATCH' or 'MISMATCH'"));
+        }
+        if (jobService.findJob(jobId).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "drift job not found", "jobId", jobId));
+        }
+
+        List<DriftJobRepository.ResultRow> rows = jobRepository.findResults(jobId, after, status, limit);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobId", jobId);
+        body.put("results", rows.stream().map(DriftJobRepository.ResultRow::result).toList());
+        body.put("nextCursor", rows.size() == limit ? rows.get(rows.size() - 1).seq() : null);
+        return ResponseEntity.ok(body);
+    }
+
+    private ResponseEntity<?> accepted(DriftJob job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of(
+                        "jobId", job.getJobId(),
+                        "status", job.getStatus(),
+                        "totalAccounts", job.getTotalAccounts(),
+                        "invalidLines", job.getInvalidLines()
+                ));
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * Represents a correction event to be published to Kafka
@@ -19,5 +20,6 @@ public class CorrectionEvent {
     private BigDecimal amount;
     private Long timestamp;
     private String reason; // explanation for the correction
+    private List<String> reasons; // contributing reasons when several corrections were coalesced
 }
 
@@ -0,0 +1,26 @@
+package com.example.drift_correction_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of an asynchronous drift-check job
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriftJob {
+    private String jobId;
+    private String status; // RECEIVING, QUEUED, RUNNING, COMPLETED, FAILED
+    private int totalAccounts;
+    private int invalidLines;
+    private int processedAccounts;
+    private int mismatches;
+    private String error;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+}
@@ -21,5 +21,6 @@ public class DriftResult {
     private String mismatchType; // missing_credit, incorrect_debit, unknown
     private String correctionEventId; // if correction was generated
     private String message;
+    private String deliveryStatus; // PENDING, PUBLISHED, FAILED; set when a correction was published
 }
 
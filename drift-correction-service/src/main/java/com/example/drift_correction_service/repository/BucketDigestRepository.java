@@ -0,0 +1,32 @@
+package com.example.drift_correction_service.repository;
+
+import com.example.drift_correction_service.util.BalanceDigest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the shadow ledger's per-bucket balance digests (account_bucket_digests), which
+ * shadow-ledger-service keeps up to date with every ledger write
+ */
+@Repository
+public class BucketDigestRepository {
+
+    private static final String DIGESTS_SQL = "SELECT bucket, digest FROM account_bucket_digests";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BucketDigestRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Digest of every bucket, indexed by bucket; 0 for buckets with no non-zero balances
+     */
+    public long[] findDigests() {
+        long[] digests = new long[BalanceDigest.BUCKETS];
+        jdbcTemplate.query(DIGESTS_SQL, rs -> {
+            digests[rs.getInt(1)] = rs.getLong(2);
+        });
+        return digests;
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.drift_correction_service.repository;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.DriftJob;
+import com.example.drift_correction_service.model.DriftResult;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to drift_jobs, drift_job_inputs, drift_work_items and drift_results
+ */
+@Repository
+public class DriftJobRepository {
+
+    /**
+     * Account hashes fall in [0, HASH_SPACE); work items split this space into ranges
+     */
+    public static final int HASH_SPACE = 1 << 16;
+
+    private static final String INSERT_INPUTS_SQL = """
+        INSERT INTO drift_job_inputs (job_id, seq, account_id, account_hash, reported_balance)
+        SELECT ?, ? + i.ord - 1, i.account_id, i.account_hash, i.reported_balance
+        FROM unnest(CAST(? AS varchar[]), CAST(? AS int[]), CAST(? AS numeric[]))
+             WITH ORDINALITY AS i(account_id, account_hash, reported_balance, ord)
+    """;
+
+    private static final String INSERT_RESULTS_SQL = """
+        INSERT INTO drift_results (job_id, seq, account_id, shadow_balance, reported_balance, difference,
+                                   status, mismatch_type, correction_event_id, message, delivery_status)
+        SELECT ?, r.seq, r.account_id, r.shadow_balance, r.reported_balance, r.difference,
+               r.status, r.mismatch_type, r.correction_event_id, r.message, r.delivery_status
+        FROM unnest(CAST(? AS int[]), CAST(? AS varchar[]), CAST(? AS numeric[]), CAST(? AS numeric[]),
+                    CAST(? AS numeric[]), CAST(? AS varchar[]), CAST(? AS varchar[]), CAST(? AS varchar[]),
+                    CAST(? AS text[]), CAST(? AS varchar[]))
+             AS r(seq, account_id, shadow_balance, reported_balance, difference,
+                  status, mismatch_type, correction_event_id, message, delivery_status)
+        ON CONFLICT (job_id, seq) DO NOTHING
+    """;
+
+    // Oldest job first; SKIP LOCKED lets concurrent instances claim disjoint ranges without waiting
+    private static final String CLAIM_WORK_ITEMS_SQL = """
+        UPDATE drift_work_items w
+        SET status = 'CLAIMED', owner = ?, lease_expires_at = now() + ? * INTERVAL '1 second',
+            attempts = w.attempts + 1, updated_at = now()
+        FROM (
+            SELECT i.job_id, i.range_id
+            FROM drift_work_items i
+            JOIN drift_jobs j ON j.job_id = i.job_id
+            WHERE j.status IN ('QUEUED', 'RUNNING')
+              AND (i.status = 'PENDING' OR (i.status = 'CLAIMED' AND i.lease_expires_at < now()))
+            ORDER BY j.created_at, i.range_id
+            LIMIT ?
+            FOR UPDATE OF i SKIP LOCKED
+        ) claimable
+        WHERE w.job_id = claimable.job_id AND w.range_id = claimable.range_id
+        RETURNING w.job_id, w.range_id, w.hash_from, w.hash_to, w.last_seq
+    """;
+
+    private static final RowMapper<DriftJob> JOB_MAPPER = (rs, rowNum) -> new DriftJob(
+            rs.getString("job_id"),
+            rs.getString("status"),
+            rs.getInt("total_accounts"),
+            rs.getInt("invalid_lines"),
+            rs.getInt("processed_accounts"),
+            rs.getInt("mismatches"),
+            rs.getString("error"),
+            toInstant(rs.getTimestamp("created_at")),
+            toInstant(rs.getTimestamp("updated_at")),
+            toInstant(rs.getTimestamp("completed_at")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DriftJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stable hash of an account id in [0, HASH_SPACE)
+     */
+    public static int accountHash(String accountId) {
+        return (accountId.hashCode() * 0x9E3779B9) >>> 16;
+    }
+
+    /**
+     * Register a job whose inputs are still being uploaded
+     */
+    public void createJob(String jobId) {
+        jdbcTemplate.update("INSERT INTO drift_jobs (job_id, status) VALUES (?, 'RECEIVING')", jobId);
+    }
+
+    /**
+     * Append one chunk of uploaded entries, numbered from firstSeq; also marks the upload as
+     * still progressing (see failStaleUploads)
+     */
+    public void appendInputs(String jobId, int firstSeq, List<CBSBalanceEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        String[] accountIds = new String[entries.size()];
+        Integer[] hashes = new Integer[entries.size()];
+        BigDecimal[] reported = new BigDecimal[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            accountIds[i] = entries.get(i).getAccountId();
+            hashes[i] = accountHash(accountIds[i]);
+            reported[i] = entries.get(i).getReportedBalance();
+        }
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_INPUTS_SQL);
+            ps.setString(1, jobId);
+            ps.setInt(2, firstSeq);
+            ps.setArray(3, con.createArrayOf("varchar", accountIds));
+            ps.setArray(4, con.createArrayOf("int4", hashes));
+            ps.setArray(5, con.createArrayOf("numeric", reported));
+            return ps;
+        });
+        jdbcTemplate.update("UPDATE drift_jobs SET updated_at = now() WHERE job_id = ?", jobId);
+    }
+
+    /**
+     * Upload finished: split the job into work items and make it claimable
+     */
+    @Transactional
+    public void markQueued(String jobId, int totalAccounts, int invalidLines, int ranges) {
+        jdbcTemplate.update("""
+            INSERT INTO drift_work_items (job_id, range_id, hash_from, hash_to, status)
+            SELECT ?, r, (r::bigint * ?) / ?, ((r + 1)::bigint * ?) / ?, 'PENDING'
+            FROM generate_series(0, ? - 1) AS r
+        """, jobId, HASH_SPACE, ranges, HASH_SPACE, ranges, ranges);
+
+        jdbcTemplate.update("""
+            UPDATE drift_jobs
+            SET status = 'QUEUED', total_accounts = ?, invalid_lines = ?, updated_at = now()
+            WHERE job_id = ?
+        """, totalAccounts, invalidLines, jobId);
+    }
+
+    public Optional<DriftJob> findJob(String jobId) {
+        return jdbcTemplate.query("SELECT * FROM drift_jobs WHERE job_id = ?", JOB_MAPPER, jobId)
+                .stream().findFirst();
+    }
+
+    /**
+     * Claim up to limit pending or lease-expired work items for this instance
+     */
+    @Transactional
+    public List<WorkItem> claimWorkItems(String owner, int leaseSeconds, int limit) {
+        List<WorkItem> claimed = jdbcTemplate.query(CLAIM_WORK_ITEMS_SQL,
+                (rs, rowNum) -> new WorkItem(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5)),
+                owner, leaseSeconds, limit);
+
+        for (String jobId : claimed.stream().map(WorkItem::jobId).distinct().toList()) {
+            jdbcTemplate.update("""
+                UPDATE drift_jobs SET status = 'RUNNING', updated_at = now()
+                WHERE job_id = ? AND status = 'QUEUED'
+            """, jobId);
+        }
+        return claimed;
+    }
+
+    /**
+     * Up to limit inputs of a work item's hash range after afterSeq, in file order
+     */
+    public List<JobInput> loadInputs(WorkItem item, int afterSeq, int limit) {
+        return jdbcTemplate.query("""
+            SELECT seq, account_id, reported_balance
+            FROM drift_job_inputs
+            WHERE job_id = ? AND account_hash >= ? AND account_hash < ? AND seq > ?
+            ORDER BY seq
+            LIMIT ?
+        """, (rs, rowNum) -> new JobInput(rs.getInt(1), new CBSBalanceEntry(rs.getString(2), rs.getBigDecimal(3))),
+                item.jobId(), item.hashFrom(), item.hashTo(), afterSeq, limit);
+    }
+
+    /**
+     * Store one chunk's results, advance the work item and renew its lease in a single transaction.
+     *
+     * @throws LeaseLostException if the item's lease expired and another instance claimed it;
+     *                            nothing from this chunk is kept
+     */
+    @Transactional
+    public void saveChunk(WorkItem item, String owner, int leaseSeconds, List<JobInput> inputs, List<DriftResult> results) {
+        int size = results.size();
+        Integer[] seqs = new Integer[size];
+        String[] accountIds = new String[size];
+        BigDecimal[] shadow = new BigDecimal[size];
+        BigDecimal[] reported = new BigDecimal[size];
+        BigDecimal[] difference = new BigDecimal[size];
+        String[] statuses = new String[size];
+        String[] mismatchTypes = new String[size];
+        String[] correctionIds = new String[size];
+        String[] messages = new String[size];
+        String[] deliveryStatuses = new String[size];
+        int mismatches = 0;
+        for (int i = 0; i < size; i++) {
+            DriftResult result = results.get(i);
+            seqs[i] = inputs.get(i).seq();
+            accountIds[i] = result.getAccountId();
+            shadow[i] = result.getShadowBalance();
+            reported[i] = result.getReportedBalance();
+            difference[i] = result.getDifference();
+            statuses[i] = result.getStatus();
+            mismatchTypes[i] = result.getMismatchType();
+            correctionIds[i] = result.getCorrectionEventId();
+            messages[i] = result.getMessage();
+            deliveryStatuses[i] = result.getDeliveryStatus();
+            if ("MISMATCH".equals(result.getStatus())) {
+                mismatches++;
+            }
+        }
+
+        int renewed = jdbcTemplate.update("""
+            UPDATE drift_work_items
+            SET last_seq = ?, lease_expires_at = now() + ? * INTERVAL '1 second', updated_at = now()
+            WHERE job_id = ? AND range_id = ? AND owner = ? AND status = 'CLAIMED'
+        """, seqs[size - 1], leaseSeconds, item.jobId(), item.rangeId(), owner);
+        if (renewed == 0) {
+            throw new LeaseLostException(item);
+        }
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_RESULTS_SQL);
+            ps.setString(1, item.jobId());
+            ps.setArray(2, con.createArrayOf("int4", seqs));
+            ps.setArray(3, con.createArrayOf("varchar", accountIds));
+            ps.setArray(4, con.createArrayOf("numeric", shadow));
+            ps.setArray(5, con.createArrayOf("numeric", reported));
+            ps.setArray(6, con.createArrayOf("numeric", difference));
+            ps.setArray(7, con.createArrayOf("varchar", statuses));
+            ps.setArray(8, con.createArrayOf("varchar", mismatchTypes));
+            ps.setArray(9, con.createArrayOf("varchar", correctionIds));
+            ps.setArray(10, con.createArrayOf("text", messages));
+            ps.setArray(11, con.createArrayOf("varchar", deliveryStatuses));
+            return ps;
+        });
+
+        jdbcTemplate.update("""
+            UPDATE drift_jobs
+            SET processed_accounts = processed_accounts + ?, mismatches = mismatches + ?, updated_at = now()
+            WHERE job_id = ?
+        """, size, mismatches, item.jobId());
+    }
+
+    /**
+     * Mark a work item done; the job completes when its last item does
+     *
+     * @return true if this completed the job
+     */
+    @Transactional
+    public boolean completeWorkItem(WorkItem item, String owner) {
+        int updated = jdbcTemplate.update("""
+            UPDATE drift_work_items
+            SET status = 'DONE', owner = NULL, lease_expires_at = NULL, updated_at = now()
+            WHERE job_id = ? AND range_id = ? AND owner = ? AND status = 'CLAIMED'
+        """, item.jobId(), item.rangeId(), owner);
+        if (updated == 0) {
+            throw new LeaseLostException(item);
+        }
+
+        return jdbcTemplate.update("""
+            UPDATE drift_jobs SET status = 'COMPLETED', updated_at = now(), completed_at = now()
+            WHERE job_id = ? AND status = 'RUNNING'
+              AND NOT EXISTS (SELECT 1 FROM drift_work_items WHERE job_id = ? AND status <> 'DONE')
+        """, item.jobId(), item.jobId()) > 0;
+    }
+
+    /**
+     * Give a failed work item back for another attempt, or fail it and its job once maxAttempts is reached
+     *
+     * @return true if the item (and job) failed for good
+     */
+    @Transactional
+    public boolean releaseWorkItem(WorkItem item, String owner, String error, int maxAttempts) {
+        List<String> statuses = jdbcTemplate.queryForList("""
+            UPDATE drift_work_items
+            SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END,
+                owner = NULL, lease_expires_at = NULL, error = ?, updated_at = now()
+            WHERE job_id = ? AND range_id = ? AND owner = ? AND status = 'CLAIMED'
+            RETURNING status
+        """, String.class, maxAttempts, error, item.jobId(), item.rangeId(), owner);
+
+        if (!statuses.contains("FAILED")) {
+            return false;
+        }
+        markFailed(item.jobId(), "Range " + item.rangeId() + " failed: " + error);
+        return true;
+    }
+
+    /**
+     * Fail jobs whose upload stopped without finishing, e.g. because the instance receiving it died
+     *
+     * @return jobs failed
+     */
+    public int failStaleUploads(int idleSeconds) {
+        return jdbcTemplate.update("""
+            UPDATE drift_jobs
+            SET status = 'FAILED', error = 'Upload did not finish', updated_at = now(), completed_at = now()
+            WHERE status = 'RECEIVING' AND updated_at < now() - ? * INTERVAL '1 second'
+        """, idleSeconds);
+    }
+
+    public void markFailed(String jobId, String error) {
+        jdbcTemplate.update("""
+            UPDATE drift_jobs SET status = 'FAILED', error = ?, updated_at = now(), completed_at = now()
+            WHERE job_id = ? AND status <> 'FAILED'
+        """, error, jobId);
+    }
+
+    /**
+     * Keyset page of results after the given seq, optionally only one status
+     */
+    public List<ResultRow> findResults(String jobId, int afterSeq, String status, int limit) {
+        RowMapper<ResultRow> mapper = (rs, rowNum) -> new ResultRow(rs.getInt("seq"), new DriftResult(
+                rs.getString("account_id"),
+                rs.getBigDecimal("shadow_balance"),
+                rs.getBigDecimal("reported_balance"),
+                rs.getBigDecimal("difference"),
+                rs.getString("status"),
+                rs.getString("mismatch_type"),
+                rs.getString("correction_event_id"),
+                rs.getString("message"),
+                rs.getString("delivery_status")));
+
+        if (status == null) {
+            return jdbcTemplate.query("""
+                SELECT * FROM drift_results
+                WHERE job_id = ? AND seq > ?
+                ORDER BY seq
+                LIMIT ?
+            """, mapper, jobId, afterSeq, limit);
+        }
+        return jdbcTemplate.query("""
+            SELECT * FROM drift_results
+            WHERE job_id = ? AND status = ? AND seq > ?
+            ORDER BY seq
+            LIMIT ?
+        """, mapper, jobId, status, afterSeq, limit);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    /**
+     * A claimed account-hash range [hashFrom, hashTo) of a job; lastSeq is the last committed input
+     */
+    public record WorkItem(String jobId, int rangeId, int hashFrom, int hashTo, int lastSeq) {}
+
+    public record JobInput(int seq, CBSBalanceEntry entry) {}
+
+    public record ResultRow(int seq, DriftResult result) {}
+
+    /**
+     * This instance no longer owns the work item; another instance has taken it over
+     */
+    public static class LeaseLostException extends IllegalStateException {
+        public LeaseLostException(WorkItem item) {
+            super("Lease lost on drift job " + item.jobId() + " range " + item.rangeId());
+        }
+    }
+}
@@ -12,10 +12,11 @@ import java.math.BigDecimal;
  */
 public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, String> {
 
+    /**
+     * Shadow balance as maintained by the shadow ledger in account_balances
+     */
     @Query(value = """
-        SELECT COALESCE(SUM(CASE WHEN type='credit' THEN amount ELSE -amount END), 0) 
-        FROM ledger 
-        WHERE account_id = :accountId
+        SELECT COALESCE((SELECT balance FROM account_balances WHERE account_id = :accountId), 0)
     """, nativeQuery = true)
     BigDecimal getShadowBalance(@Param("accountId") String accountId);
 }
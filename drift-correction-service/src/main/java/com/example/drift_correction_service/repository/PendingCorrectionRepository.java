@@ -0,0 +1,112 @@
+package com.example.drift_correction_service.repository;
+
+import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.util.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Corrections published but not yet applied by the shadow ledger (pending_corrections).
+ * A correction is applied once its eventId is in the ledger table, which this service can read.
+ */
+@Repository
+public class PendingCorrectionRepository {
+
+    // A correction republished after it expired (lost or rejected) is pending again
+    private static final String RECORD_SQL = """
+        INSERT INTO pending_corrections (correction_id, account_id, amount, status, created_at)
+        VALUES (?, ?, ?, 'PENDING', now())
+        ON CONFLICT (correction_id) DO UPDATE
+        SET status = 'PENDING', created_at = now(), resolved_at = NULL
+        WHERE pending_corrections.status = 'EXPIRED'
+    """;
+
+    // Checks the ledger directly, so a correction applied since the last sweep no longer counts
+    private static final String IN_FLIGHT_SQL = """
+        SELECT p.account_id, SUM(p.amount)
+        FROM pending_corrections p
+        WHERE p.status = 'PENDING'
+          AND p.account_id = ANY(CAST(? AS varchar[]))
+          AND NOT EXISTS (SELECT 1 FROM ledger l WHERE l.event_id = p.correction_id)
+        GROUP BY p.account_id
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PendingCorrectionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(CorrectionEvent correction) {
+        BigDecimal signed = "debit".equals(correction.getType()) ? correction.getAmount().negate() : correction.getAmount();
+        jdbcTemplate.update(RECORD_SQL, correction.getEventId(), correction.getAccountId(), signed);
+    }
+
+    /**
+     * Stop counting a correction that failed to publish
+     */
+    public void release(String correctionId) {
+        jdbcTemplate.update("""
+            UPDATE pending_corrections SET status = 'EXPIRED', resolved_at = now()
+            WHERE correction_id = ? AND status = 'PENDING'
+        """, correctionId);
+    }
+
+    /**
+     * Net amount of in-flight corrections per account, in minor units; accounts with none are absent
+     */
+    public Map<String, Long> findInFlight(Collection<String> accountIds) {
+        Map<String, Long> inFlight = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return inFlight;
+        }
+
+        String[] ids = accountIds.toArray(new String[0]);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(IN_FLIGHT_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", ids));
+            return ps;
+        }, rs -> {
+            inFlight.put(rs.getString(1), Money.toMinor(rs.getBigDecimal(2)));
+        });
+        return inFlight;
+    }
+
+    /**
+     * Mark pending corrections that have reached the ledger as applied
+     */
+    public int markApplied() {
+        return jdbcTemplate.update("""
+            UPDATE pending_corrections p SET status = 'APPLIED', resolved_at = now()
+            WHERE p.status = 'PENDING'
+              AND EXISTS (SELECT 1 FROM ledger l WHERE l.event_id = p.correction_id)
+        """);
+    }
+
+    /**
+     * Stop counting corrections the ledger has not applied within ttl, e.g. ones sent to the DLT
+     */
+    public int expire(Duration ttl) {
+        return jdbcTemplate.update("""
+            UPDATE pending_corrections SET status = 'EXPIRED', resolved_at = now()
+            WHERE status = 'PENDING' AND created_at < now() - ? * INTERVAL '1 second'
+        """, ttl.toSeconds());
+    }
+
+    /**
+     * Delete applied and expired corrections resolved more than retention ago
+     */
+    public int purge(Duration retention) {
+        return jdbcTemplate.update("""
+            DELETE FROM pending_corrections
+            WHERE status <> 'PENDING' AND resolved_at < now() - ? * INTERVAL '1 second'
+        """, retention.toSeconds());
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.drift_correction_service.repository;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.DriftResult;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based shadow balance lookup for a batch of accounts.
+ * The account ids go to Postgres as one array parameter and are joined against
+ * account_balances in a single statement, instead of one query per account.
+ */
+@Repository
+public class ShadowBalanceBulkRepository {
+
+    private static final String SHADOW_BALANCES_SQL = """
+        SELECT c.ord, COALESCE(b.balance, 0)
+        FROM unnest(CAST(? AS varchar[])) WITH ORDINALITY AS c(account_id, ord)
+        LEFT JOIN account_balances b ON b.account_id = c.account_id
+    """;
+
+    // Same lookup plus the last reconciliation; unchanged = last result was MATCH, no ledger
+    // rows since (event_count watermark) and the same CBS reported balance
+    private static final String SNAPSHOTS_SQL = """
+        SELECT c.ord,
+               COALESCE(b.balance, 0),
+               COALESCE(b.event_count, 0),
+               s.status = 'MATCH'
+                   AND s.ledger_event_count = COALESCE(b.event_count, 0)
+                   AND s.reported_balance = c.reported_balance
+        FROM unnest(CAST(? AS varchar[]), CAST(? AS numeric[])) WITH ORDINALITY AS c(account_id, reported_balance, ord)
+        LEFT JOIN account_balances b ON b.account_id = c.account_id
+        LEFT JOIN drift_account_state s ON s.account_id = c.account_id
+    """;
+
+    // Balance as of a ledger position: the latest checkpoint at or before it plus the ledger
+    // rows between the two. %1$s / %2$s bound the checkpoint and the ledger rows.
+    private static final String AS_OF_SQL = """
+        SELECT c.ord, COALESCE(cp.balance, 0) + COALESCE(d.delta, 0)
+        FROM unnest(CAST(? AS varchar[])) WITH ORDINALITY AS c(account_id, ord)
+        LEFT JOIN LATERAL (
+            SELECT k.ts, k.event_id, k.balance
+            FROM account_balance_checkpoints k
+            WHERE k.account_id = c.account_id AND %1$s
+            ORDER BY k.ts DESC, k.event_id DESC
+            LIMIT 1
+        ) cp ON true
+        CROSS JOIN LATERAL (
+            SELECT SUM(CASE WHEN l.type = 'credit' THEN l.amount ELSE -l.amount END) AS delta
+            FROM ledger l
+            WHERE l.account_id = c.account_id
+              AND (l.timestamp, l.event_id) > (COALESCE(cp.ts, -9223372036854775808), COALESCE(cp.event_id, ''))
+              AND %2$s
+        ) d
+    """;
+
+    // Cutoff at a (timestamp, event_id) position, per ordering-rules.md
+    private static final String AS_OF_POSITION_SQL = AS_OF_SQL.formatted(
+            "(k.ts, k.event_id) <= (?, ?)", "(l.timestamp, l.event_id) <= (?, ?)");
+
+    // Cutoff at the end of a millisecond
+    private static final String AS_OF_TIMESTAMP_SQL = AS_OF_SQL.formatted(
+            "k.ts <= ?", "l.timestamp <= ?");
+
+    private static final String UPSERT_STATE_SQL = """
+        INSERT INTO drift_account_state (account_id, ledger_event_count, reported_balance, shadow_balance, status, reconciled_at)
+        SELECT s.account_id, s.ledger_event_count, s.reported_balance, s.shadow_balance, s.status, now()
+        FROM unnest(CAST(? AS varchar[]), CAST(? AS bigint[]), CAST(? AS numeric[]), CAST(? AS numeric[]), CAST(? AS varchar[]))
+             AS s(account_id, ledger_event_count, reported_balance, shadow_balance, status)
+        ON CONFLICT (account_id) DO UPDATE
+        SET ledger_event_count = EXCLUDED.ledger_event_count,
+            reported_balance = EXCLUDED.reported_balance,
+            shadow_balance = EXCLUDED.shadow_balance,
+            status = EXCLUDED.status,
+            reconciled_at = EXCLUDED.reconciled_at
+    """;
+
+    // Stored instead of MATCH when the match relied on in-flight corrections; if one of them
+    // never reaches the ledger the event count does not move, so that match must not be reused
+    public static final String MATCH_IN_FLIGHT = "MATCH_IN_FLIGHT";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShadowBalanceBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Shadow balances for the given accounts, in the same order; 0 for accounts with no ledger entries
+     */
+    public BigDecimal[] getShadowBalances(List<String> accountIds) {
+        BigDecimal[] balances = new BigDecimal[accountIds.size()];
+        if (accountIds.isEmpty()) {
+            return balances;
+        }
+
+        String[] ids = accountIds.toArray(new String[0]);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SHADOW_BALANCES_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", ids));
+            return ps;
+        }, rs -> {
+            balances[(int) rs.getLong(1) - 1] = rs.getBigDecimal(2);
+        });
+        return balances;
+    }
+
+    /**
+     * Shadow balances as of a ledger position, in the same order; 0 for accounts with no ledger
+     * entries up to it
+     */
+    public BigDecimal[] getShadowBalancesAsOf(List<String> accountIds, AsOf asOf) {
+        BigDecimal[] balances = new BigDecimal[accountIds.size()];
+        if (accountIds.isEmpty()) {
+            return balances;
+        }
+
+        String[] ids = accountIds.toArray(new String[0]);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps;
+            if (asOf.eventId() == null) {
+                ps = con.prepareStatement(AS_OF_TIMESTAMP_SQL);
+                ps.setArray(1, con.createArrayOf("varchar", ids));
+                ps.setLong(2, asOf.timestamp());
+                ps.setLong(3, asOf.timestamp());
+            } else {
+                ps = con.prepareStatement(AS_OF_POSITION_SQL);
+                ps.setArray(1, con.createArrayOf("varchar", ids));
+                ps.setLong(2, asOf.timestamp());
+                ps.setString(3, asOf.eventId());
+                ps.setLong(4, asOf.timestamp());
+                ps.setString(5, asOf.eventId());
+            }
+            return ps;
+        }, rs -> {
+            balances[(int) rs.getLong(1) - 1] = rs.getBigDecimal(2);
+        });
+        return balances;
+    }
+
+    /**
+     * Shadow balance, ledger watermark and whether the account is unchanged since its last MATCH,
+     * for each entry in the same order
+     */
+    public Snapshot[] getSnapshots(List<CBSBalanceEntry> entries) {
+        Snapshot[] snapshots = new Snapshot[entries.size()];
+        if (entries.isEmpty()) {
+            return snapshots;
+        }
+
+        String[] ids = new String[entries.size()];
+        BigDecimal[] reported = new BigDecimal[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            ids[i] = entries.get(i).getAccountId();
+            reported[i] = entries.get(i).getReportedBalance();
+        }
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SNAPSHOTS_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", ids));
+            ps.setArray(2, con.createArrayOf("numeric", reported));
+            return ps;
+        }, rs -> {
+            snapshots[(int) rs.getLong(1) - 1] = new Snapshot(rs.getBigDecimal(2), rs.getLong(3), rs.getBoolean(4));
+        });
+        return snapshots;
+    }
+
+    /**
+     * Record the outcome of re-checked accounts with the watermark they were checked at
+     *
+     * @param states status to store per result; only MATCH is reused by getSnapshots
+     */
+    public void saveStates(List<DriftResult> results, List<Long> eventCounts, List<String> states) {
+        // One row per account; a repeated account keeps its last result
+        Map<String, Integer> lastIndex = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            lastIndex.put(results.get(i).getAccountId(), i);
+        }
+        if (lastIndex.isEmpty()) {
+            return;
+        }
+
+        int size = lastIndex.size();
+        String[] ids = new String[size];
+        Long[] watermarks = new Long[size];
+        BigDecimal[] reported = new BigDecimal[size];
+        BigDecimal[] shadow = new BigDecimal[size];
+        String[] statuses = new String[size];
+        int row = 0;
+        for (int i : lastIndex.values()) {
+            DriftResult result = results.get(i);
+            ids[row] = result.getAccountId();
+            watermarks[row] = eventCounts.get(i);
+            reported[row] = result.getReportedBalance();
+            shadow[row] = result.getShadowBalance();
+            statuses[row] = states.get(i);
+            row++;
+        }
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_STATE_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", ids));
+            ps.setArray(2, con.createArrayOf("bigint", watermarks));
+            ps.setArray(3, con.createArrayOf("numeric", reported));
+            ps.setArray(4, con.createArrayOf("numeric", shadow));
+            ps.setArray(5, con.createArrayOf("varchar", statuses));
+            return ps;
+        });
+    }
+
+    /**
+     * A ledger position in (timestamp, event_id) order; without an eventId, the end of that millisecond
+     */
+    public record AsOf(long timestamp, String eventId) {}
+
+    /**
+     * One account's shadow balance and ledger watermark, and whether it can reuse its last MATCH
+     */
+    public record Snapshot(BigDecimal shadowBalance, long eventCount, boolean unchanged) {}
+}
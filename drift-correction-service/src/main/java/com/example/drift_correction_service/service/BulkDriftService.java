@@ -0,0 +1,195 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.DriftResult;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository.AsOf;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository.Snapshot;
+import com.example.drift_correction_service.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drift check for large CBS files.
+ * Shadow balances are fetched one chunk of accounts per query rather than one query per
+ * account; the comparison and correction logic is DriftService's.
+ *
+ * When incremental, each account's last reconciliation is kept in drift_account_state with the
+ * ledger watermark (account_balances.event_count) it was checked at. Accounts whose last result
+ * was MATCH, whose ledger has no new rows and whose CBS balance is unchanged get that MATCH back
+ * without being re-evaluated; only the rest are checked and their state rewritten.
+ *
+ * A check as of a ledger position (a CBS cutoff) compares against the balance at that
+ * position instead, from the nearest balance checkpoint plus the ledger rows after it.
+ * It bypasses the incremental state, which tracks current balances.
+ *
+ * Corrections still in flight for an account (see DriftService) are looked up once per chunk,
+ * and every chunk waits for its own corrections to be acknowledged before returning, so each
+ * result's delivery status is final and at most one chunk's corrections are outstanding.
+ * A whole checkDrift run publishes in one Kafka transaction when transactions are enabled.
+ */
+@Service
+public class BulkDriftService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkDriftService.class);
+
+    private final ShadowBalanceBulkRepository bulkRepository;
+    private final DriftService driftService;
+    private final int chunkSize;
+    private final boolean incremental;
+
+    public BulkDriftService(ShadowBalanceBulkRepository bulkRepository,
+                            DriftService driftService,
+                            @Value("${drift.bulk.chunk-size:5000}") int chunkSize,
+                            @Value("${drift.incremental.enabled:true}") boolean incremental) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("drift.bulk.chunk-size must be greater than 0");
+        }
+        this.bulkRepository = bulkRepository;
+        this.driftService = driftService;
+        this.chunkSize = chunkSize;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Check drift for every entry, in input order
+     */
+    public List<DriftResult> checkDrift(List<CBSBalanceEntry> cbsBalances) {
+        return driftService.inCorrectionTransaction(() -> {
+            List<DriftResult> results = new ArrayList<>(cbsBalances.size());
+
+            for (int from = 0; from < cbsBalances.size(); from += chunkSize) {
+                List<CBSBalanceEntry> chunk = cbsBalances.subList(from, Math.min(from + chunkSize, cbsBalances.size()));
+                results.addAll(checkChunk(chunk));
+            }
+
+            return results;
+        });
+    }
+
+    /**
+     * Check drift for every entry against shadow balances as of a ledger position, in input order
+     */
+    public List<DriftResult> checkDrift(List<CBSBalanceEntry> cbsBalances, AsOf asOf) {
+        if (asOf == null) {
+            return checkDrift(cbsBalances);
+        }
+
+        List<DriftResult> results = driftService.inCorrectionTransaction(() -> {
+            List<DriftResult> checked = new ArrayList<>(cbsBalances.size());
+            for (int from = 0; from < cbsBalances.size(); from += chunkSize) {
+                List<CBSBalanceEntry> chunk = cbsBalances.subList(from, Math.min(from + chunkSize, cbsBalances.size()));
+                BigDecimal[] shadowBalances = bulkRepository.getShadowBalancesAsOf(accountIds(chunk), asOf);
+                checked.addAll(evaluate(chunk, shadowBalances));
+            }
+            return checked;
+        });
+
+        log.info("Checked drift for {} accounts as of timestamp={}, eventId={}",
+                cbsBalances.size(), asOf.timestamp(), asOf.eventId());
+        return results;
+    }
+
+    /**
+     * Check one chunk with a single shadow balance query
+     */
+    public List<DriftResult> checkChunk(List<CBSBalanceEntry> chunk) {
+        if (incremental) {
+            return checkChunkIncremental(chunk);
+        }
+
+        BigDecimal[] shadowBalances = bulkRepository.getShadowBalances(accountIds(chunk));
+        List<DriftResult> results = evaluate(chunk, shadowBalances);
+
+        log.info("Checked drift for {} accounts in one query, {} mismatches", chunk.size(),
+                results.stream().filter(r -> "MISMATCH".equals(r.getStatus())).count());
+        return results;
+    }
+
+    private List<DriftResult> evaluate(List<CBSBalanceEntry> chunk, BigDecimal[] shadowBalances) {
+        Map<String, Long> inFlight = driftService.findInFlight(accountIds(chunk));
+
+        List<DriftResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            CBSBalanceEntry cbs = chunk.get(i);
+            results.add(driftService.evaluateDrift(cbs, shadowBalances[i], inFlight.getOrDefault(cbs.getAccountId(), 0L)));
+        }
+        driftService.awaitDeliveries(results);
+        return results;
+    }
+
+    private static List<String> accountIds(List<CBSBalanceEntry> chunk) {
+        List<String> accountIds = new ArrayList<>(chunk.size());
+        for (CBSBalanceEntry cbs : chunk) {
+            accountIds.add(cbs.getAccountId());
+        }
+        return accountIds;
+    }
+
+    private List<DriftResult> checkChunkIncremental(List<CBSBalanceEntry> chunk) {
+        Snapshot[] snapshots = bulkRepository.getSnapshots(chunk);
+
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!snapshots[i].unchanged()) {
+                changed.add(chunk.get(i).getAccountId());
+            }
+        }
+        Map<String, Long> inFlight = changed.isEmpty() ? Map.of() : driftService.findInFlight(changed);
+
+        List<DriftResult> results = new ArrayList<>(chunk.size());
+        List<DriftResult> checked = new ArrayList<>();
+        List<Long> watermarks = new ArrayList<>();
+        List<String> states = new ArrayList<>();
+        int mismatches = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Snapshot snapshot = snapshots[i];
+            if (snapshot.unchanged()) {
+                results.add(cachedMatch(chunk.get(i), snapshot.shadowBalance()));
+                continue;
+            }
+
+            CBSBalanceEntry cbs = chunk.get(i);
+            long accountInFlight = inFlight.getOrDefault(cbs.getAccountId(), 0L);
+            DriftResult result = driftService.evaluateDrift(cbs, snapshot.shadowBalance(), accountInFlight);
+            if ("MISMATCH".equals(result.getStatus())) {
+                mismatches++;
+            }
+            results.add(result);
+            checked.add(result);
+            watermarks.add(snapshot.eventCount());
+            states.add("MATCH".equals(result.getStatus()) && accountInFlight != 0
+                    ? ShadowBalanceBulkRepository.MATCH_IN_FLIGHT
+                    : result.getStatus());
+        }
+        driftService.awaitDeliveries(checked);
+
+        if (!checked.isEmpty()) {
+            bulkRepository.saveStates(checked, watermarks, states);
+        }
+
+        log.info("Checked drift for {} accounts in one query, {} unchanged since last match, {} mismatches",
+                chunk.size(), chunk.size() - checked.size(), mismatches);
+        return results;
+    }
+
+    private static DriftResult cachedMatch(CBSBalanceEntry cbs, BigDecimal shadowBalance) {
+        long shadowMinor = Money.toMinor(shadowBalance);
+
+        DriftResult result = new DriftResult();
+        result.setAccountId(cbs.getAccountId());
+        result.setShadowBalance(Money.toDecimal(shadowMinor));
+        result.setReportedBalance(cbs.getReportedBalance());
+        result.setDifference(Money.toDecimal(Money.subtract(Money.toMinorRounded(cbs.getReportedBalance()), shadowMinor)));
+        result.setStatus("MATCH");
+        result.setMessage("Balances match (no ledger or CBS change since last check)");
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental reader for CBS balance files, one entry per line.
+ *
+ * CSV: "accountId,reportedBalance", with an optional header line.
+ * NDJSON: one {"accountId": ..., "reportedBalance": ...} object per line.
+ * Blank lines are skipped; malformed lines are reported back and do not stop the read.
+ */
+public class CbsBalanceReader implements Closeable {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final ObjectReader ENTRY_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readerFor(CBSBalanceEntry.class);
+
+    private final BufferedReader reader;
+    private final Format format;
+    private long lineNumber;
+
+    public CbsBalanceReader(InputStream in, Format format) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.format = format;
+    }
+
+    /**
+     * Read up to maxEntries lines' worth of entries; an empty chunk means end of input
+     */
+    public Chunk readChunk(int maxEntries) throws IOException {
+        List<CBSBalanceEntry> entries = new ArrayList<>(Math.min(maxEntries, 1024));
+        List<InvalidLine> invalid = new ArrayList<>();
+
+        String line;
+        while (entries.size() + invalid.size() < maxEntries && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            try {
+                entries.add(format == Format.CSV ? parseCsv(line) : parseJson(line));
+            } catch (RuntimeException | IOException e) {
+                invalid.add(new InvalidLine(lineNumber, e.getMessage()));
+            }
+        }
+        return new Chunk(entries, invalid);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static CBSBalanceEntry parseCsv(String line) {
+        int comma = line.indexOf(',');
+        if (comma < 0 || line.indexOf(',', comma + 1) >= 0) {
+            throw new IllegalArgumentException("expected accountId,reportedBalance");
+        }
+        return validate(new CBSBalanceEntry(line.substring(0, comma).trim(),
+                new BigDecimal(line.substring(comma + 1).trim())));
+    }
+
+    private static CBSBalanceEntry parseJson(String line) throws IOException {
+        return validate(ENTRY_READER.readValue(line));
+    }
+
+    private static CBSBalanceEntry validate(CBSBalanceEntry entry) {
+        if (entry.getAccountId() == null || entry.getAccountId().isBlank()) {
+            throw new IllegalArgumentException("accountId is required");
+        }
+        if (entry.getReportedBalance() == null) {
+            throw new IllegalArgumentException("reportedBalance is required");
+        }
+        return entry;
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase().startsWith("accountid");
+    }
+
+    /**
+     * Entries read in one chunk, plus any lines that could not be parsed
+     */
+    public record Chunk(List<CBSBalanceEntry> entries, List<InvalidLine> invalid) {
+        public boolean isEmpty() {
+            return entries.isEmpty() && invalid.isEmpty();
+        }
+    }
+
+    public record InvalidLine(long line, String error) {}
+}
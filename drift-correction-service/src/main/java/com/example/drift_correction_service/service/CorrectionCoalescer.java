@@ -0,0 +1,277 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.util.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Coalescing stage in front of CorrectionPublisher.
+ *
+ * Corrections are buffered per account for drift.corrections.coalesce.window-ms. When an
+ * account's window ends, or the buffer holds max-buffered corrections, its corrections are
+ * netted into one: credits against debits, repeats of the same eventId dropped, and the
+ * contributing reasons carried in reasons. A lone correction is published unchanged; netted
+ * ones get an id derived from the contributing ids; a net of zero publishes nothing (NETTED).
+ * Every contributing correction's delivery reports the published id and its status.
+ *
+ * Buffered corrections are not in pending_corrections yet, so findBuffered reports them for
+ * in-flight checks. Corrections submitted inside a run's Kafka transaction skip the buffer and
+ * stay part of that transaction. A window of 0 disables coalescing.
+ */
+@Service
+public class CorrectionCoalescer {
+
+    public static final String NETTED = "NETTED";
+
+    private static final Logger log = LoggerFactory.getLogger(CorrectionCoalescer.class);
+
+    private final CorrectionPublisher correctionPublisher;
+    private final long windowMs;
+    private final int maxBuffered;
+
+    // Guarded by this; publishing happens outside the lock
+    private final Map<String, Buffer> buffers = new LinkedHashMap<>();
+    private int buffered;
+
+    public CorrectionCoalescer(CorrectionPublisher correctionPublisher,
+                               @Value("${drift.corrections.coalesce.window-ms:250}") long windowMs,
+                               @Value("${drift.corrections.coalesce.max-buffered:1000}") int maxBuffered) {
+        if (maxBuffered <= 0) {
+            throw new IllegalArgumentException("drift.corrections.coalesce.max-buffered must be greater than 0");
+        }
+        this.correctionPublisher = correctionPublisher;
+        this.windowMs = windowMs;
+        this.maxBuffered = maxBuffered;
+    }
+
+    /**
+     * Buffer a correction for its account's window, or publish it directly when coalescing is
+     * off or a run transaction is open
+     */
+    public CompletableFuture<Delivery> submit(CorrectionEvent correction) {
+        if (windowMs <= 0 || correctionPublisher.isInTransaction()) {
+            return correctionPublisher.publish(correction)
+                    .thenApply(status -> new Delivery(correction.getEventId(), status));
+        }
+
+        CompletableFuture<Delivery> delivery = new CompletableFuture<>();
+        boolean full;
+        synchronized (this) {
+            if (buffers.computeIfAbsent(correction.getAccountId(), accountId -> new Buffer(System.currentTimeMillis()))
+                    .add(correction, delivery)) {
+                buffered++;
+            }
+            full = buffered >= maxBuffered;
+        }
+        if (full) {
+            flushBuffers();
+        }
+        return delivery;
+    }
+
+    /**
+     * Net amount of buffered corrections per account in minor units; accounts with none are absent
+     */
+    public synchronized Map<String, Long> findBuffered(Collection<String> accountIds) {
+        Map<String, Long> amounts = new HashMap<>();
+        if (buffers.isEmpty()) {
+            return amounts;
+        }
+        for (String accountId : accountIds) {
+            Buffer buffer = buffers.get(accountId);
+            if (buffer != null) {
+                amounts.put(accountId, net(buffer.corrections.values()));
+            }
+        }
+        return amounts;
+    }
+
+    /**
+     * Publish accounts whose window has ended
+     */
+    @Scheduled(fixedDelayString = "${drift.corrections.coalesce.flush-interval-ms:100}")
+    public void flushDue() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        List<Map.Entry<String, Buffer>> due = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Buffer>> it = buffers.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Buffer> entry = it.next();
+                // Insertion order is window order: stop at the first account still open
+                if (entry.getValue().openedAt > cutoff) {
+                    break;
+                }
+                due.add(entry);
+                buffered -= entry.getValue().size();
+                it.remove();
+            }
+        }
+        publish(due);
+    }
+
+    /**
+     * Publish every buffered account now and wait until all corrections so far have a final status
+     */
+    @PreDestroy
+    public void flush() {
+        flushBuffers();
+        correctionPublisher.flush();
+    }
+
+    /**
+     * Run a drift run in the publisher's transaction; its corrections bypass the buffer
+     */
+    public <T> T inTransaction(Supplier<T> run) {
+        return correctionPublisher.inTransaction(run);
+    }
+
+    private void flushBuffers() {
+        List<Map.Entry<String, Buffer>> all;
+        synchronized (this) {
+            all = new ArrayList<>(buffers.entrySet());
+            buffers.clear();
+            buffered = 0;
+        }
+        publish(all);
+    }
+
+    private void publish(List<Map.Entry<String, Buffer>> accounts) {
+        for (Map.Entry<String, Buffer> entry : accounts) {
+            Buffer buffer = entry.getValue();
+            CorrectionEvent merged;
+            try {
+                merged = coalesce(entry.getKey(), buffer.corrections.values());
+            } catch (RuntimeException e) {
+                log.error("Could not coalesce corrections for accountId={}", entry.getKey(), e);
+                buffer.completeEach(CorrectionPublisher.FAILED);
+                continue;
+            }
+
+            if (merged == null) {
+                log.info("Corrections for accountId={} net to zero, nothing published: {}",
+                        entry.getKey(), buffer.corrections.keySet());
+                buffer.completeEach(NETTED);
+                continue;
+            }
+
+            if (buffer.size() > 1) {
+                log.info("Coalesced {} corrections for accountId={} into eventId={}, type={}, amount={}",
+                        buffer.size(), entry.getKey(), merged.getEventId(), merged.getType(), merged.getAmount());
+            }
+            correctionPublisher.publish(merged)
+                    .thenAccept(status -> buffer.complete(new Delivery(merged.getEventId(), status)));
+        }
+    }
+
+    /**
+     * One correction for the account's net amount, or null when credits and debits cancel out
+     */
+    static CorrectionEvent coalesce(String accountId, Collection<CorrectionEvent> corrections) {
+        if (corrections.size() == 1) {
+            return corrections.iterator().next();
+        }
+
+        long net = net(corrections);
+        if (net == 0) {
+            return null;
+        }
+
+        List<String> ids = new ArrayList<>();
+        List<String> reasons = new ArrayList<>();
+        for (CorrectionEvent correction : corrections) {
+            ids.add(correction.getEventId());
+            reasons.add(correction.getReason());
+        }
+        ids.sort(null);
+
+        CorrectionEvent merged = new CorrectionEvent();
+        merged.setEventId(coalescedId(accountId, ids));
+        merged.setAccountId(accountId);
+        merged.setType(net > 0 ? "credit" : "debit");
+        merged.setAmount(Money.toDecimal(Money.abs(net)));
+        merged.setTimestamp(System.currentTimeMillis());
+        merged.setReason("Coalesced " + corrections.size() + " corrections");
+        merged.setReasons(reasons);
+        return merged;
+    }
+
+    private static long net(Collection<CorrectionEvent> corrections) {
+        long net = 0;
+        for (CorrectionEvent correction : corrections) {
+            long amount = Money.toMinorRounded(correction.getAmount());
+            net = Math.addExact(net, "debit".equals(correction.getType()) ? -amount : amount);
+        }
+        return net;
+    }
+
+    /**
+     * Same set of contributing corrections gives the same id. The "merged" tag, which is also
+     * part of the hashed name, keeps it apart from the ids of single corrections.
+     */
+    private static String coalescedId(String accountId, List<String> sortedIds) {
+        String name = "merged|" + accountId + "|" + String.join("|", sortedIds);
+        return "CORR-" + accountId + "-merged-" + UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Published correction id and its delivery status, for one submitted correction
+     */
+    public record Delivery(String correctionEventId, String status) {}
+
+    /**
+     * Corrections for one account in the current window, by eventId
+     */
+    private static final class Buffer {
+        private final long openedAt;
+        private final Map<String, CorrectionEvent> corrections = new LinkedHashMap<>();
+        private final Map<String, List<CompletableFuture<Delivery>>> deliveries = new HashMap<>();
+
+        private Buffer(long openedAt) {
+            this.openedAt = openedAt;
+        }
+
+        /**
+         * @return false if the same eventId was already buffered
+         */
+        private boolean add(CorrectionEvent correction, CompletableFuture<Delivery> delivery) {
+            deliveries.computeIfAbsent(correction.getEventId(), id -> new ArrayList<>()).add(delivery);
+            // A rerun republishing the same id is the same correction
+            return corrections.putIfAbsent(correction.getEventId(), correction) == null;
+        }
+
+        private int size() {
+            return corrections.size();
+        }
+
+        /**
+         * Every contributing correction was published as the given delivery
+         */
+        private void complete(Delivery delivery) {
+            deliveries.values().forEach(futures -> futures.forEach(future -> future.complete(delivery)));
+        }
+
+        /**
+         * Nothing was published; each contributing correction keeps its own id
+         */
+        private void completeEach(String status) {
+            deliveries.forEach((eventId, futures) -> futures.forEach(future -> future.complete(new Delivery(eventId, status))));
+        }
+    }
+}
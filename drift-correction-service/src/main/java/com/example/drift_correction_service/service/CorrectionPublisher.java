@@ -0,0 +1,143 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Publishes correction events to Kafka with a bounded number of unacknowledged sends.
+ *
+ * Each send takes a permit from the in-flight window and returns it once the broker acknowledges
+ * or the send fails, so a bulk run with many mismatches waits here instead of filling the
+ * producer buffer. A correction is recorded in pending_corrections before it is sent and
+ * released again if the send fails. The returned delivery status is PUBLISHED or FAILED; it
+ * never completes exceptionally.
+ *
+ * With a transactional producer (drift.corrections.transactional) inTransaction runs a whole
+ * drift run's sends in one Kafka transaction, so read_committed consumers see all of its
+ * corrections or none; an aborted run releases every correction it recorded.
+ */
+@Service
+public class CorrectionPublisher {
+
+    public static final String PENDING = "PENDING";
+    public static final String PUBLISHED = "PUBLISHED";
+    public static final String FAILED = "FAILED";
+
+    private static final Logger log = LoggerFactory.getLogger(CorrectionPublisher.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PendingCorrectionRepository pendingCorrections;
+    private final String correctionsTopic;
+    private final Semaphore window;
+    // Corrections sent in this thread's open Kafka transaction, released if it aborts
+    private final ThreadLocal<List<CorrectionEvent>> transactionSends = new ThreadLocal<>();
+
+    public CorrectionPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                               PendingCorrectionRepository pendingCorrections,
+                               @Value("${kafka.topics.transactions-corrections}") String correctionsTopic,
+                               @Value("${drift.corrections.max-in-flight:1000}") int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("drift.corrections.max-in-flight must be greater than 0");
+        }
+        this.kafkaTemplate = kafkaTemplate;
+        this.pendingCorrections = pendingCorrections;
+        this.correctionsTopic = correctionsTopic;
+        this.window = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Record and send a correction, waiting while the in-flight window is full
+     */
+    public CompletableFuture<String> publish(CorrectionEvent correction) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted before publishing correction event: eventId={}", correction.getEventId());
+            return CompletableFuture.completedFuture(FAILED);
+        }
+
+        try {
+            pendingCorrections.record(correction);
+            List<CorrectionEvent> sends = transactionSends.get();
+            if (sends != null) {
+                sends.add(correction);
+            }
+            return kafkaTemplate.send(correctionsTopic, correction.getAccountId(), correction)
+                    .handle((result, ex) -> {
+                        window.release();
+                        if (ex == null) {
+                            log.info("Correction event published: eventId={}, topic={}",
+                                    correction.getEventId(), correctionsTopic);
+                            return PUBLISHED;
+                        }
+                        log.error("Failed to publish correction event: eventId={}", correction.getEventId(), ex);
+                        release(correction);
+                        return FAILED;
+                    });
+        } catch (Exception e) {
+            window.release();
+            log.error("Error publishing correction event: eventId={} - Kafka may be unavailable. Drift detection will continue.",
+                    correction.getEventId(), e);
+            release(correction);
+            // Don't throw exception - allow drift detection to continue even if Kafka is down
+            return CompletableFuture.completedFuture(FAILED);
+        }
+    }
+
+    /**
+     * Send everything the producer has buffered and wait for it; once this returns, every
+     * earlier publish has its final delivery status
+     */
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    /**
+     * Whether the current thread is inside an inTransaction run
+     */
+    public boolean isInTransaction() {
+        return transactionSends.get() != null;
+    }
+
+    /**
+     * Run a drift run in one Kafka transaction when the producer is transactional, otherwise
+     * just run it. Nested calls join the outer transaction.
+     */
+    public <T> T inTransaction(Supplier<T> run) {
+        if (!kafkaTemplate.isTransactional() || isInTransaction()) {
+            return run.get();
+        }
+
+        List<CorrectionEvent> sends = new ArrayList<>();
+        transactionSends.set(sends);
+        try {
+            return kafkaTemplate.executeInTransaction(operations -> run.get());
+        } catch (RuntimeException e) {
+            log.error("Correction transaction aborted, releasing {} corrections", sends.size(), e);
+            sends.forEach(this::release);
+            throw e;
+        } finally {
+            transactionSends.remove();
+        }
+    }
+
+    private void release(CorrectionEvent correction) {
+        try {
+            pendingCorrections.release(correction.getEventId());
+        } catch (Exception e) {
+            log.error("Could not release pending correction: eventId={}; it expires on its own", correction.getEventId(), e);
+        }
+    }
+}
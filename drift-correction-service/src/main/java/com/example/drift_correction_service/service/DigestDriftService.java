@@ -0,0 +1,132 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.DriftResult;
+import com.example.drift_correction_service.repository.BucketDigestRepository;
+import com.example.drift_correction_service.util.BalanceDigest;
+import com.example.drift_correction_service.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Full-book drift check by bucket digest.
+ * The CBS file is folded into the same per-bucket digests the shadow ledger maintains
+ * (see BalanceDigest) and compared bucket by bucket; only the accounts in buckets that
+ * differ go through the account-level check in BulkDriftService.
+ *
+ * The file is read twice, chunk by chunk: once to fold it into the digests and once to pick
+ * out the accounts of differing buckets, so memory is bounded by the bucket count and the
+ * chunk size rather than by the size of the book.
+ *
+ * Expects the complete book: accounts left out of the file make their buckets differ,
+ * which costs an account-level check of those buckets but never hides a mismatch. An
+ * account listed twice with the same balance cancels out of the XOR and so makes its
+ * bucket differ as well.
+ */
+@Service
+public class DigestDriftService {
+
+    private static final Logger log = LoggerFactory.getLogger(DigestDriftService.class);
+
+    private final BucketDigestRepository digestRepository;
+    private final BulkDriftService bulkDriftService;
+    private final int chunkSize;
+
+    public DigestDriftService(BucketDigestRepository digestRepository,
+                              BulkDriftService bulkDriftService,
+                              @Value("${drift.bulk.chunk-size:5000}") int chunkSize) {
+        this.digestRepository = digestRepository;
+        this.bulkDriftService = bulkDriftService;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Check a CBS file; it must stay readable until this returns
+     */
+    public Report checkDrift(Path cbsFile, CbsBalanceReader.Format format) throws IOException {
+        long[] cbsDigests = new long[BalanceDigest.BUCKETS];
+        int totalAccounts = 0;
+        int invalidLines = 0;
+
+        try (CbsBalanceReader reader = new CbsBalanceReader(Files.newInputStream(cbsFile), format)) {
+            CbsBalanceReader.Chunk chunk;
+            while (!(chunk = reader.readChunk(chunkSize)).isEmpty()) {
+                for (CBSBalanceEntry cbs : chunk.entries()) {
+                    cbsDigests[BalanceDigest.bucket(cbs.getAccountId())] ^=
+                            BalanceDigest.term(cbs.getAccountId(), Money.toMinorRounded(cbs.getReportedBalance()));
+                }
+                totalAccounts += chunk.entries().size();
+                invalidLines += chunk.invalid().size();
+            }
+        }
+
+        BitSet differing = new BitSet(BalanceDigest.BUCKETS);
+        long[] ledgerDigests = digestRepository.findDigests();
+        for (int bucket = 0; bucket < BalanceDigest.BUCKETS; bucket++) {
+            if (cbsDigests[bucket] != ledgerDigests[bucket]) {
+                differing.set(bucket);
+            }
+        }
+
+        List<DriftResult> results = new ArrayList<>();
+        int checkedAccounts = 0;
+        if (!differing.isEmpty()) {
+            try (CbsBalanceReader reader = new CbsBalanceReader(Files.newInputStream(cbsFile), format)) {
+                List<CBSBalanceEntry> drillDown = new ArrayList<>();
+                CbsBalanceReader.Chunk chunk;
+                while (!(chunk = reader.readChunk(chunkSize)).isEmpty()) {
+                    for (CBSBalanceEntry cbs : chunk.entries()) {
+                        if (differing.get(BalanceDigest.bucket(cbs.getAccountId()))) {
+                            drillDown.add(cbs);
+                        }
+                    }
+                    if (drillDown.size() >= chunkSize) {
+                        results.addAll(bulkDriftService.checkDrift(drillDown));
+                        checkedAccounts += drillDown.size();
+                        drillDown.clear();
+                    }
+                }
+                if (!drillDown.isEmpty()) {
+                    results.addAll(bulkDriftService.checkDrift(drillDown));
+                    checkedAccounts += drillDown.size();
+                }
+            }
+        }
+
+        // Differing buckets where every account matched: sub-cent differences within the
+        // tolerance, or ledger accounts missing from the file
+        BitSet unexplained = (BitSet) differing.clone();
+        int mismatches = 0;
+        for (DriftResult result : results) {
+            if ("MISMATCH".equals(result.getStatus())) {
+                unexplained.clear(BalanceDigest.bucket(result.getAccountId()));
+                mismatches++;
+            }
+        }
+
+        log.info("Digest drift check: {} accounts, {} invalid lines, {} of {} buckets differ, {} accounts checked, {} mismatches",
+                totalAccounts, invalidLines, differing.cardinality(), BalanceDigest.BUCKETS, checkedAccounts, mismatches);
+        return new Report(totalAccounts, invalidLines, differing.cardinality(), checkedAccounts, mismatches,
+                unexplained.stream().boxed().toList(), results);
+    }
+
+    /**
+     * Outcome of a digest drift check
+     *
+     * @param invalidLines       lines that could not be parsed; their accounts are not in the digests
+     * @param checkedAccounts    accounts in differing buckets, checked one by one
+     * @param unexplainedBuckets differing buckets in which no account mismatched
+     * @param results            results for the checked accounts only
+     */
+    public record Report(int totalAccounts, int invalidLines, int differingBuckets, int checkedAccounts, int mismatches,
+                         List<Integer> unexplainedBuckets, List<DriftResult> results) {}
+}
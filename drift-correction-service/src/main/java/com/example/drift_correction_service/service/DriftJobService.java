@@ -0,0 +1,217 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.DriftJob;
+import com.example.drift_correction_service.model.DriftResult;
+import com.example.drift_correction_service.repository.DriftJobRepository;
+import com.example.drift_correction_service.repository.DriftJobRepository.JobInput;
+import com.example.drift_correction_service.repository.DriftJobRepository.LeaseLostException;
+import com.example.drift_correction_service.repository.DriftJobRepository.WorkItem;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Asynchronous drift-check jobs, shared by every drift-service instance.
+ *
+ * Submitting stores the CBS entries in drift_job_inputs and splits the job into account-hash
+ * ranges (drift_work_items). Each instance claims ranges with FOR UPDATE SKIP LOCKED, up to its
+ * number of free workers, and processes them in parallel one chunk at a time. Every chunk's
+ * results are committed together with the range's progress and a renewed lease; if an instance
+ * dies its leases expire and another instance carries on from the last committed chunk.
+ * The job completes when its last range does.
+ */
+@Service
+public class DriftJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(DriftJobService.class);
+
+    private final DriftJobRepository jobRepository;
+    private final BulkDriftService bulkDriftService;
+    private final int chunkSize;
+    private final int ranges;
+    private final int leaseSeconds;
+    private final int maxAttempts;
+    private final int uploadTimeoutSeconds;
+    private final String instanceId;
+    private final ExecutorService workers;
+    private final Semaphore freeWorkers;
+
+    public DriftJobService(DriftJobRepository jobRepository,
+                           BulkDriftService bulkDriftService,
+                           @Value("${drift.bulk.chunk-size:5000}") int chunkSize,
+                           @Value("${drift.jobs.workers:2}") int workerCount,
+                           @Value("${drift.jobs.ranges:64}") int ranges,
+                           @Value("${drift.jobs.lease-seconds:120}") int leaseSeconds,
+                           @Value("${drift.jobs.max-attempts:3}") int maxAttempts,
+                           @Value("${drift.jobs.upload-timeout-seconds:600}") int uploadTimeoutSeconds,
+                           @Value("${drift.instance-id:}") String instanceId) {
+        if (ranges <= 0 || ranges > DriftJobRepository.HASH_SPACE) {
+            throw new IllegalArgumentException("drift.jobs.ranges must be between 1 and " + DriftJobRepository.HASH_SPACE);
+        }
+        this.jobRepository = jobRepository;
+        this.bulkDriftService = bulkDriftService;
+        this.chunkSize = chunkSize;
+        this.ranges = ranges;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.uploadTimeoutSeconds = uploadTimeoutSeconds;
+        this.instanceId = instanceId.isBlank() ? defaultInstanceId() : instanceId;
+        this.workers = Executors.newFixedThreadPool(workerCount, Thread.ofPlatform().name("drift-job-", 0).factory());
+        this.freeWorkers = new Semaphore(workerCount);
+    }
+
+    /**
+     * Create a job from an in-memory list of entries, in one transaction so a crash never
+     * leaves it half stored
+     */
+    @Transactional
+    public DriftJob submit(List<CBSBalanceEntry> entries) {
+        String jobId = newJobId();
+        jobRepository.createJob(jobId);
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            jobRepository.appendInputs(jobId, from, entries.subList(from, Math.min(from + chunkSize, entries.size())));
+        }
+        return queue(jobId, entries.size(), 0);
+    }
+
+    /**
+     * Create a job from a CSV or NDJSON upload, storing it chunk by chunk as it is read
+     */
+    public DriftJob submit(InputStream in, CbsBalanceReader.Format format) throws IOException {
+        String jobId = newJobId();
+        jobRepository.createJob(jobId);
+
+        int total = 0;
+        int invalid = 0;
+        try (CbsBalanceReader reader = new CbsBalanceReader(in, format)) {
+            CbsBalanceReader.Chunk chunk;
+            while (!(chunk = reader.readChunk(chunkSize)).isEmpty()) {
+                jobRepository.appendInputs(jobId, total, chunk.entries());
+                total += chunk.entries().size();
+                invalid += chunk.invalid().size();
+            }
+        } catch (IOException | RuntimeException e) {
+            jobRepository.markFailed(jobId, "Upload failed: " + e.getMessage());
+            throw e;
+        }
+        return queue(jobId, total, invalid);
+    }
+
+    public Optional<DriftJob> findJob(String jobId) {
+        return jobRepository.findJob(jobId);
+    }
+
+    /**
+     * Claim as many ranges as this instance has free workers and start processing them
+     */
+    @Scheduled(fixedDelayString = "${drift.jobs.poll-interval-ms:5000}")
+    public void claimAndProcess() {
+        int free = freeWorkers.drainPermits();
+        if (free == 0) {
+            return;
+        }
+
+        List<WorkItem> claimed;
+        try {
+            claimed = jobRepository.claimWorkItems(instanceId, leaseSeconds, free);
+        } catch (RuntimeException e) {
+            freeWorkers.release(free);
+            throw e;
+        }
+        freeWorkers.release(free - claimed.size());
+
+        for (WorkItem item : claimed) {
+            workers.execute(() -> {
+                try {
+                    process(item);
+                } finally {
+                    freeWorkers.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Fail uploads that stopped progressing, so their jobs do not stay RECEIVING forever
+     */
+    @Scheduled(fixedDelayString = "${drift.jobs.poll-interval-ms:5000}")
+    public void failStaleUploads() {
+        int failed = jobRepository.failStaleUploads(uploadTimeoutSeconds);
+        if (failed > 0) {
+            log.warn("Failed {} drift jobs whose upload stopped more than {}s ago", failed, uploadTimeoutSeconds);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Claimed ranges are left to expire and are picked up from their last committed chunk
+        workers.shutdownNow();
+    }
+
+    void process(WorkItem item) {
+        int lastSeq = item.lastSeq();
+        try {
+            if (lastSeq >= 0) {
+                log.info("Resuming drift job {} range {} after input {}", item.jobId(), item.rangeId(), lastSeq);
+            }
+
+            List<JobInput> inputs;
+            while (!Thread.currentThread().isInterrupted()
+                    && !(inputs = jobRepository.loadInputs(item, lastSeq, chunkSize)).isEmpty()) {
+                List<CBSBalanceEntry> chunk = new ArrayList<>(inputs.size());
+                for (JobInput input : inputs) {
+                    chunk.add(input.entry());
+                }
+                List<DriftResult> results = bulkDriftService.checkChunk(chunk);
+                jobRepository.saveChunk(item, instanceId, leaseSeconds, inputs, results);
+                lastSeq = inputs.get(inputs.size() - 1).seq();
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                log.info("Drift job {} range {} interrupted after input {}, lease left to expire",
+                        item.jobId(), item.rangeId(), lastSeq);
+                return;
+            }
+            if (jobRepository.completeWorkItem(item, instanceId)) {
+                log.info("Drift job completed: jobId={}", item.jobId());
+            }
+        } catch (LeaseLostException e) {
+            log.warn("{}; leaving it to the new owner", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Drift job {} range {} failed after input {}", item.jobId(), item.rangeId(), lastSeq, e);
+            if (jobRepository.releaseWorkItem(item, instanceId, e.getMessage(), maxAttempts)) {
+                log.error("Drift job failed: jobId={}, range {} reached {} attempts", item.jobId(), item.rangeId(), maxAttempts);
+            }
+        }
+    }
+
+    private DriftJob queue(String jobId, int total, int invalid) {
+        jobRepository.markQueued(jobId, total, invalid, ranges);
+        log.info("Drift job queued: jobId={}, accounts={}, invalidLines={}, ranges={}", jobId, total, invalid, ranges);
+        return jobRepository.findJob(jobId).orElseThrow();
+    }
+
+    private static String newJobId() {
+        return "DRIFT-" + UUID.randomUUID();
+    }
+
+    private static String defaultInstanceId() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "drift");
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
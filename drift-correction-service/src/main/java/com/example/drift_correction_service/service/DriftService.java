@@ -2,35 +2,55 @@ package com.example.drift_correction_service.service;
 
 import com.example.drift_correction_service.model.*;
 import com.example.drift_correction_service.repository.LedgerEntryRepository;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import com.example.drift_correction_service.util.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
- * Service for drift detection and correction
+ * Service for drift detection and correction.
+ *
+ * Every published correction is tracked in pending_corrections until the shadow ledger applies
+ * it, and drift checks subtract an account's in-flight amount from its difference, so a rerun
+ * before the ledger catches up does not correct the same difference twice. Automatic
+ * corrections get deterministic ids per (run, account, shadow balance, difference); a run is a
+ * UTC day, matching end-of-day CBS files, so reruns republish the same id and the ledger's
+ * deduplication drops the repeat.
+ *
+ * Publishing goes through CorrectionCoalescer and CorrectionPublisher; each result that
+ * carries a correction also carries its published id and delivery status, which are final once
+ * awaitDeliveries returns.
  */
 @Service
 public class DriftService {
 
     private static final Logger log = LoggerFactory.getLogger(DriftService.class);
-    private static final BigDecimal TOLERANCE = new BigDecimal("0.01"); // 1 cent tolerance
+    private static final long TOLERANCE = 1; // 1 cent tolerance, in minor units
 
     private final LedgerEntryRepository ledgerRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PendingCorrectionRepository pendingCorrections;
+    private final CorrectionCoalescer correctionCoalescer;
 
-    @Value("${kafka.topics.transactions-corrections}")
-    private String correctionsTopic;
-
-    public DriftService(LedgerEntryRepository ledgerRepository, KafkaTemplate<String, Object> kafkaTemplate) {
+    public DriftService(LedgerEntryRepository ledgerRepository,
+                        PendingCorrectionRepository pendingCorrections,
+                        CorrectionCoalescer correctionCoalescer) {
         this.ledgerRepository = ledgerRepository;
-        this.kafkaTemplate = kafkaTemplate;
+        this.pendingCorrections = pendingCorrections;
+        this.correctionCoalescer = correctionCoalescer;
     }
 
     /**
@@ -44,6 +64,7 @@ public class DriftService {
             results.add(result);
         }
 
+        awaitDeliveries(results);
         return results;
     }
 
@@ -51,71 +72,117 @@ public class DriftService {
      * Check drift for a single account
      */
     private DriftResult checkAccountDrift(CBSBalanceEntry cbs) {
-        String accountId = cbs.getAccountId();
-        BigDecimal reportedBalance = cbs.getReportedBalance();
+        log.info("Checking drift for accountId={}, reportedBalance={}", cbs.getAccountId(), cbs.getReportedBalance());
 
-        log.info("Checking drift for accountId={}, reportedBalance={}", accountId, reportedBalance);
+        BigDecimal shadowBalance = ledgerRepository.getShadowBalance(cbs.getAccountId());
+        long inFlight = findInFlight(List.of(cbs.getAccountId())).getOrDefault(cbs.getAccountId(), 0L);
+        return evaluateDrift(cbs, shadowBalance, inFlight);
+    }
 
-        BigDecimal shadowBalance = ledgerRepository.getShadowBalance(accountId);
-        if (shadowBalance == null) {
-            shadowBalance = BigDecimal.ZERO;
-        }
+    /**
+     * Net in-flight correction amount per account in minor units, for a batch of accounts
+     */
+    public Map<String, Long> findInFlight(Collection<String> accountIds) {
+        Map<String, Long> inFlight = new HashMap<>(pendingCorrections.findInFlight(accountIds));
+        // Corrections still waiting in the coalescing window are not recorded yet
+        correctionCoalescer.findBuffered(accountIds)
+                .forEach((accountId, amount) -> inFlight.merge(accountId, amount, Math::addExact));
+        return inFlight;
+    }
+
+    /**
+     * Compare a CBS entry with an already fetched shadow balance, publishing a correction on mismatch
+     */
+    public DriftResult evaluateDrift(CBSBalanceEntry cbs, BigDecimal shadowBalance) {
+        return evaluateDrift(cbs, shadowBalance, 0);
+    }
+
+    /**
+     * Compare a CBS entry with an already fetched shadow balance plus the corrections still in
+     * flight for the account, publishing a correction for whatever difference remains
+     *
+     * @param inFlightMinor net amount of published corrections the ledger has not applied yet
+     */
+    public DriftResult evaluateDrift(CBSBalanceEntry cbs, BigDecimal shadowBalance, long inFlightMinor) {
+        String accountId = cbs.getAccountId();
+        BigDecimal reportedBalance = cbs.getReportedBalance();
 
-        BigDecimal difference = reportedBalance.subtract(shadowBalance);
+        long shadowMinor = shadowBalance == null ? 0 : Money.toMinor(shadowBalance);
+        long reportedMinor = Money.toMinorRounded(reportedBalance);
+        long difference = Money.subtract(Money.subtract(reportedMinor, shadowMinor), inFlightMinor);
+        long absDifference = Money.abs(difference);
+        String inFlightNote = inFlightMinor == 0 ? "" : " (after " + Money.toDecimal(inFlightMinor) + " in flight)";
 
         DriftResult result = new DriftResult();
         result.setAccountId(accountId);
-        result.setShadowBalance(shadowBalance);
+        result.setShadowBalance(Money.toDecimal(shadowMinor));
         result.setReportedBalance(reportedBalance);
-        result.setDifference(difference);
+        result.setDifference(Money.toDecimal(difference));
 
         // Check if balances match within tolerance
-        if (difference.abs().compareTo(TOLERANCE) <= 0) {
+        if (absDifference <= TOLERANCE) {
             result.setStatus("MATCH");
-            result.setMessage("Balances match");
-            log.info("Balance match for accountId={}", accountId);
+            result.setMessage("Balances match" + inFlightNote);
+            log.debug("Balance match for accountId={}", accountId);
         } else {
             result.setStatus("MISMATCH");
 
             // Determine mismatch type and generate correction if possible
-            if (difference.compareTo(BigDecimal.ZERO) > 0) {
+            if (difference > 0) {
                 // CBS balance is higher - missing credit in shadow ledger
                 result.setMismatchType("missing_credit");
-                result.setMessage("Shadow ledger is missing credit of " + difference.abs());
+                result.setMessage("Shadow ledger is missing credit of " + Money.toDecimal(absDifference) + inFlightNote);
 
                 // Generate correction event
-                CorrectionEvent correction = generateCorrectionEvent(accountId, "credit", difference.abs(),
-                        "Auto-correction: missing credit detected");
+                CorrectionEvent correction = generateCorrectionEvent(correctionId(accountId, shadowMinor, difference),
+                        accountId, "credit", absDifference, "Auto-correction: missing credit detected");
                 result.setCorrectionEventId(correction.getEventId());
 
-                publishCorrectionEvent(correction);
+                publish(correction, result);
 
             } else {
                 // CBS balance is lower - extra credit or missing debit in shadow ledger
                 result.setMismatchType("incorrect_debit");
-                result.setMessage("Shadow ledger has extra balance of " + difference.abs() + " - may need debit correction");
+                result.setMessage("Shadow ledger has extra balance of " + Money.toDecimal(absDifference) + inFlightNote
+                        + " - may need debit correction");
 
                 // Generate debit correction
-                CorrectionEvent correction = generateCorrectionEvent(accountId, "debit", difference.abs(),
-                        "Auto-correction: incorrect debit detected");
+                CorrectionEvent correction = generateCorrectionEvent(correctionId(accountId, shadowMinor, difference),
+                        accountId, "debit", absDifference, "Auto-correction: incorrect debit detected");
                 result.setCorrectionEventId(correction.getEventId());
 
-                publishCorrectionEvent(correction);
+                publish(correction, result);
             }
 
             log.warn("Balance mismatch for accountId={}, difference={}, type={}",
-                    accountId, difference, result.getMismatchType());
+                    accountId, result.getDifference(), result.getMismatchType());
         }
 
         return result;
     }
 
+    /**
+     * Generate a correction event for an amount in minor units
+     */
+    public CorrectionEvent generateCorrectionEvent(String accountId, String type, long amountMinor, String reason) {
+        return generateCorrectionEvent(accountId, type, Money.toDecimal(amountMinor), reason);
+    }
+
     /**
      * Generate a correction event
      */
     public CorrectionEvent generateCorrectionEvent(String accountId, String type, BigDecimal amount, String reason) {
         String correctionId = "CORR-" + accountId + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return generateCorrectionEvent(correctionId, accountId, type, amount, reason);
+    }
 
+    private CorrectionEvent generateCorrectionEvent(String correctionId, String accountId, String type,
+                                                    long amountMinor, String reason) {
+        return generateCorrectionEvent(correctionId, accountId, type, Money.toDecimal(amountMinor), reason);
+    }
+
+    private CorrectionEvent generateCorrectionEvent(String correctionId, String accountId, String type,
+                                                    BigDecimal amount, String reason) {
         CorrectionEvent correction = new CorrectionEvent();
         correction.setEventId(correctionId);
         correction.setAccountId(accountId);
@@ -131,26 +198,51 @@ public class DriftService {
     }
 
     /**
-     * Publish correction event to Kafka
+     * Same (run, account, shadow balance, difference) gives the same id. The name-based UUID
+     * keeps 128 bits, so two different corrections never share an id and the ledger's eventId
+     * deduplication cannot drop one of them.
+     */
+    String correctionId(String accountId, long shadowMinor, long differenceMinor) {
+        String key = LocalDate.now(ZoneOffset.UTC) + "|" + accountId + "|" + shadowMinor + "|" + differenceMinor;
+        return "CORR-" + accountId + "-" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Publish correction event to Kafka, tracking it as in flight until the ledger applies it.
+     * It may be coalesced with other corrections for the account into one published event.
+     *
+     * @return published correction id and delivery status
+     */
+    public CompletableFuture<CorrectionCoalescer.Delivery> publishCorrectionEvent(CorrectionEvent correction) {
+        CompletableFuture<CorrectionCoalescer.Delivery> delivery = correctionCoalescer.submit(correction);
+        log.info("Correction event queued for publishing: eventId={}", correction.getEventId());
+        return delivery;
+    }
+
+    /**
+     * Wait until every correction published for these results has been acknowledged or failed
      */
-    public void publishCorrectionEvent(CorrectionEvent correction) {
-        try {
-            kafkaTemplate.send(correctionsTopic, correction.getAccountId(), correction)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.info("Correction event published: eventId={}, topic={}",
-                                    correction.getEventId(), correctionsTopic);
-                        } else {
-                            log.error("Failed to publish correction event: eventId={}",
-                                    correction.getEventId(), ex);
-                        }
-                    });
-            log.info("Correction event queued for publishing: eventId={}", correction.getEventId());
-        } catch (Exception e) {
-            log.error("Error publishing correction event: eventId={} - Kafka may be unavailable. Drift detection will continue.",
-                    correction.getEventId(), e);
-            // Don't throw exception - allow drift detection to continue even if Kafka is down
+    public void awaitDeliveries(List<DriftResult> results) {
+        for (DriftResult result : results) {
+            if (CorrectionPublisher.PENDING.equals(result.getDeliveryStatus())) {
+                correctionCoalescer.flush();
+                return;
+            }
         }
     }
-}
 
+    /**
+     * Run a drift run so its corrections are published atomically when transactions are enabled
+     */
+    public <T> T inCorrectionTransaction(Supplier<T> run) {
+        return correctionCoalescer.inTransaction(run);
+    }
+
+    private void publish(CorrectionEvent correction, DriftResult result) {
+        result.setDeliveryStatus(CorrectionPublisher.PENDING);
+        publishCorrectionEvent(correction).thenAccept(delivery -> {
+            result.setCorrectionEventId(delivery.correctionEventId());
+            result.setDeliveryStatus(delivery.status());
+        });
+    }
+}
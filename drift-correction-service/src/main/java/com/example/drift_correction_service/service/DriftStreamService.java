@@ -0,0 +1,85 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.DriftResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Streaming drift check: reads a CBS file chunk by chunk and writes each chunk's results
+ * as NDJSON before reading the next, so memory stays bounded by the chunk size.
+ * The stream ends with a single {"summary": {...}} record.
+ */
+@Service
+public class DriftStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DriftStreamService.class);
+
+    private final BulkDriftService bulkDriftService;
+    private final int chunkSize;
+    // Flushed once per chunk, not per record
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    public DriftStreamService(BulkDriftService bulkDriftService,
+                              @Value("${drift.bulk.chunk-size:5000}") int chunkSize) {
+        this.bulkDriftService = bulkDriftService;
+        this.chunkSize = chunkSize;
+    }
+
+    public Summary streamDrift(InputStream in, CbsBalanceReader.Format format, OutputStream out) throws IOException {
+        long totalAccounts = 0;
+        long mismatches = 0;
+        long invalidLines = 0;
+
+        try (CbsBalanceReader reader = new CbsBalanceReader(in, format);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+
+            CbsBalanceReader.Chunk chunk;
+            while (!(chunk = reader.readChunk(chunkSize)).isEmpty()) {
+                for (CbsBalanceReader.InvalidLine invalid : chunk.invalid()) {
+                    writeLine(generator, Map.of("line", invalid.line(), "error", String.valueOf(invalid.error())));
+                }
+                invalidLines += chunk.invalid().size();
+
+                if (!chunk.entries().isEmpty()) {
+                    for (DriftResult result : bulkDriftService.checkChunk(chunk.entries())) {
+                        writeLine(generator, result);
+                        if ("MISMATCH".equals(result.getStatus())) {
+                            mismatches++;
+                        }
+                    }
+                    totalAccounts += chunk.entries().size();
+                }
+
+                // Push each chunk to the client before reading the next one
+                generator.flush();
+            }
+
+            Summary summary = new Summary(totalAccounts, mismatches, invalidLines);
+            writeLine(generator, Map.of("summary", summary));
+            generator.flush();
+
+            log.info("Streaming drift check completed: {} accounts, {} mismatches, {} invalid lines",
+                    totalAccounts, mismatches, invalidLines);
+            return summary;
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, Object value) throws IOException {
+        objectMapper.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+
+    public record Summary(long totalAccounts, long mismatches, long invalidLines) {}
+}
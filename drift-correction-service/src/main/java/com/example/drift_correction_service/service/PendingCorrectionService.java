@@ -0,0 +1,48 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Resolves pending corrections by polling the ledger for their eventIds.
+ * Drift checks already ignore corrections found in the ledger; this keeps
+ * pending_corrections small and expires corrections the ledger never applied.
+ */
+@Service
+public class PendingCorrectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingCorrectionService.class);
+
+    private final PendingCorrectionRepository pendingCorrections;
+    private final Duration pendingTtl;
+    private final Duration retention;
+
+    public PendingCorrectionService(PendingCorrectionRepository pendingCorrections,
+                                    @Value("${drift.corrections.pending-ttl-minutes:60}") long pendingTtlMinutes,
+                                    @Value("${drift.corrections.retention-days:7}") long retentionDays) {
+        this.pendingCorrections = pendingCorrections;
+        this.pendingTtl = Duration.ofMinutes(pendingTtlMinutes);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Scheduled(fixedDelayString = "${drift.corrections.sweep-interval-ms:30000}")
+    public void sweep() {
+        int applied = pendingCorrections.markApplied();
+        int expired = pendingCorrections.expire(pendingTtl);
+        int purged = pendingCorrections.purge(retention);
+
+        if (expired > 0) {
+            log.warn("{} pending correction(s) not applied by the ledger within {}; no longer counted as in flight",
+                    expired, pendingTtl);
+        }
+        if (applied > 0 || purged > 0) {
+            log.info("Pending corrections: {} applied, {} purged", applied, purged);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.drift_correction_service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Per-bucket balance digests for digest reconciliation against the shadow ledger.
+ *
+ * Accounts are spread over BUCKETS by the first 12 bits of md5(accountId). A bucket's digest is
+ * the XOR of the first 64 bits of md5(accountId || ':' || balance in minor units) over its
+ * accounts with a non-zero balance, so it can be updated in place by XOR-ing out an account's
+ * old term and XOR-ing in the new one. Zero balances contribute nothing, so an account missing
+ * on one side and zero on the other still matches.
+ *
+ * Must stay in step with BalanceDigest in shadow-ledger-service, which maintains account_bucket_digests.
+ */
+public final class BalanceDigest {
+
+    public static final int BUCKET_BITS = 12;
+    public static final int BUCKETS = 1 << BUCKET_BITS;
+
+    private BalanceDigest() {
+    }
+
+    public static int bucket(String accountId) {
+        byte[] md5 = md5(accountId);
+        return ((md5[0] & 0xFF) << 8 | (md5[1] & 0xFF)) >>> (16 - BUCKET_BITS);
+    }
+
+    /**
+     * An account's contribution to its bucket digest
+     */
+    public static long term(String accountId, long balanceMinor) {
+        if (balanceMinor == 0) {
+            return 0;
+        }
+        byte[] md5 = md5(accountId + ":" + balanceMinor);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (md5[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static byte[] md5(String value) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.drift_correction_service.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money as a primitive long of minor units (cents).
+ * Same representation as the shadow ledger's Money; drift comparison runs on longs and
+ * BigDecimal is only used at the JSON and JDBC edges.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Exact conversion for ledger amounts, which are stored as NUMERIC(19, 2)
+     *
+     * @throws ArithmeticException if the amount has sub-cent digits or does not fit in a long
+     */
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Conversion for externally reported balances, which may carry sub-cent digits
+     */
+    public static long toMinorRounded(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long abs(long minor) {
+        return Math.absExact(minor);
+    }
+}
@@ -0,0 +1,96 @@
+-- Asynchronous drift-check jobs (drift-correction-service)
+-- Work is split into account-hash ranges (drift_work_items) that any instance can claim
+CREATE TABLE IF NOT EXISTS drift_jobs (
+    job_id VARCHAR(64) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL CHECK (status IN ('RECEIVING', 'QUEUED', 'RUNNING', 'COMPLETED', 'FAILED')),
+    total_accounts INT NOT NULL DEFAULT 0,
+    invalid_lines INT NOT NULL DEFAULT 0,
+    processed_accounts INT NOT NULL DEFAULT 0,
+    mismatches INT NOT NULL DEFAULT 0,
+    error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_drift_jobs_status ON drift_jobs(status, created_at);
+
+-- CBS entries submitted with a job, numbered in file order
+CREATE TABLE IF NOT EXISTS drift_job_inputs (
+    job_id VARCHAR(64) NOT NULL REFERENCES drift_jobs(job_id) ON DELETE CASCADE,
+    seq INT NOT NULL,
+    account_id VARCHAR(255) NOT NULL,
+    account_hash INT NOT NULL,
+    reported_balance NUMERIC NOT NULL,
+    PRIMARY KEY (job_id, seq)
+);
+
+CREATE INDEX IF NOT EXISTS idx_drift_job_inputs_range ON drift_job_inputs(job_id, account_hash, seq);
+
+-- Account-hash ranges of a job. Instances claim them with FOR UPDATE SKIP LOCKED and hold
+-- them under a lease; an expired lease (dead instance) makes the range claimable again, and
+-- last_seq lets the next owner carry on from the last committed chunk.
+CREATE TABLE IF NOT EXISTS drift_work_items (
+    job_id VARCHAR(64) NOT NULL REFERENCES drift_jobs(job_id) ON DELETE CASCADE,
+    range_id INT NOT NULL,
+    hash_from INT NOT NULL, -- inclusive
+    hash_to INT NOT NULL,   -- exclusive
+    status VARCHAR(16) NOT NULL CHECK (status IN ('PENDING', 'CLAIMED', 'DONE', 'FAILED')),
+    owner VARCHAR(255),
+    lease_expires_at TIMESTAMP,
+    last_seq INT NOT NULL DEFAULT -1,
+    attempts INT NOT NULL DEFAULT 0,
+    error TEXT,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (job_id, range_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_drift_work_items_claimable ON drift_work_items(status, lease_expires_at);
+
+-- One result per input, keyed by the same seq for keyset pagination
+CREATE TABLE IF NOT EXISTS drift_results (
+    job_id VARCHAR(64) NOT NULL REFERENCES drift_jobs(job_id) ON DELETE CASCADE,
+    seq INT NOT NULL,
+    account_id VARCHAR(255) NOT NULL,
+    shadow_balance NUMERIC(19, 2) NOT NULL,
+    reported_balance NUMERIC NOT NULL,
+    difference NUMERIC(19, 2) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    mismatch_type VARCHAR(32),
+    correction_event_id VARCHAR(255),
+    message TEXT,
+    delivery_status VARCHAR(16),
+    PRIMARY KEY (job_id, seq)
+);
+
+-- Added with correction delivery reporting; tables created before it lack the column
+ALTER TABLE drift_results ADD COLUMN IF NOT EXISTS delivery_status VARCHAR(16);
+
+-- Mismatches-only pages
+CREATE INDEX IF NOT EXISTS idx_drift_results_job_status_seq ON drift_results(job_id, status, seq);
+
+-- Last reconciliation per account, for incremental drift checks. An account is only
+-- re-checked when its ledger has moved past ledger_event_count (account_balances.event_count)
+-- or the CBS reported balance changed; otherwise its cached MATCH is returned.
+CREATE TABLE IF NOT EXISTS drift_account_state (
+    account_id VARCHAR(255) PRIMARY KEY,
+    ledger_event_count BIGINT NOT NULL,
+    reported_balance NUMERIC NOT NULL,
+    shadow_balance NUMERIC(19, 2) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    reconciled_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Corrections published but not yet in the ledger. Drift checks subtract an account's
+-- in-flight amount from its difference, so a rerun does not publish the same correction again.
+-- A correction counts as applied once its eventId is in the ledger.
+CREATE TABLE IF NOT EXISTS pending_corrections (
+    correction_id VARCHAR(255) PRIMARY KEY,
+    account_id VARCHAR(255) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL, -- signed: credits positive, debits negative
+    status VARCHAR(16) NOT NULL, -- PENDING, APPLIED, EXPIRED
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    resolved_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_pending_corrections_account ON pending_corrections(account_id) WHERE status = 'PENDING';
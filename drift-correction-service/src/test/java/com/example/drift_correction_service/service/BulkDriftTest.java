@@ -0,0 +1,172 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.DriftResult;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository.AsOf;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bulk Drift Test
+ * Tests that shadow balances are fetched once per chunk and matched back to the right CBS entry
+ */
+public class BulkDriftTest {
+
+    @Mock
+    private ShadowBalanceBulkRepository bulkRepository;
+
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DriftService driftService;
+
+    private BulkDriftService bulkDriftService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        driftService = new DriftService(null, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
+        bulkDriftService = new BulkDriftService(bulkRepository, driftService, 2, false);
+    }
+
+    @Test
+    public void testOneQueryPerChunkInInputOrder() {
+        when(bulkRepository.getShadowBalances(List.of("A10", "A20")))
+            .thenReturn(new BigDecimal[]{new BigDecimal("1000.00"), new BigDecimal("950.00")});
+        when(bulkRepository.getShadowBalances(List.of("A30")))
+            .thenReturn(new BigDecimal[]{new BigDecimal("0")});
+
+        List<DriftResult> results = bulkDriftService.checkDrift(List.of(
+            new CBSBalanceEntry("A10", new BigDecimal("1000.00")),
+            new CBSBalanceEntry("A20", new BigDecimal("1000.00")),
+            new CBSBalanceEntry("A30", new BigDecimal("25.00"))
+        ));
+
+        verify(bulkRepository, times(2)).getShadowBalances(anyList());
+        assertThat(results).extracting(DriftResult::getAccountId).containsExactly("A10", "A20", "A30");
+        assertThat(results).extracting(DriftResult::getStatus).containsExactly("MATCH", "MISMATCH", "MISMATCH");
+        assertThat(results.get(1).getDifference()).isEqualByComparingTo("50.00");
+        assertThat(results.get(1).getMismatchType()).isEqualTo("missing_credit");
+        assertThat(results.get(2).getShadowBalance()).isEqualByComparingTo("0");
+        verify(kafkaTemplate, times(2)).send(any(), anyString(), any());
+    }
+
+    @Test
+    public void testMatchesPerAccountPath() {
+        when(bulkRepository.getShadowBalances(List.of("A40")))
+            .thenReturn(new BigDecimal[]{new BigDecimal("1000.00")});
+
+        List<DriftResult> results = bulkDriftService.checkDrift(List.of(
+            new CBSBalanceEntry("A40", new BigDecimal("1000.005"))
+        ));
+
+        // Same rounding and 1 cent tolerance as DriftService.checkDrift
+        assertThat(results.get(0).getStatus()).isEqualTo("MATCH");
+        verify(kafkaTemplate, never()).send(any(), anyString(), any());
+    }
+
+    @Test
+    public void testIncrementalReusesUnchangedMatches() {
+        BulkDriftService incremental = new BulkDriftService(bulkRepository, driftService, 10, true);
+        List<CBSBalanceEntry> entries = List.of(
+            new CBSBalanceEntry("A10", new BigDecimal("1000.00")),
+            new CBSBalanceEntry("A20", new BigDecimal("1000.00")),
+            new CBSBalanceEntry("A30", new BigDecimal("500.00"))
+        );
+        // A10 unchanged since its last MATCH; A20 has new ledger rows; A30 never checked
+        when(bulkRepository.getSnapshots(entries)).thenReturn(new Snapshot[]{
+            new Snapshot(new BigDecimal("1000.00"), 12, true),
+            new Snapshot(new BigDecimal("950.00"), 8, false),
+            new Snapshot(new BigDecimal("500.00"), 3, false)
+        });
+
+        List<DriftResult> results = incremental.checkDrift(entries);
+
+        assertThat(results).extracting(DriftResult::getAccountId).containsExactly("A10", "A20", "A30");
+        assertThat(results).extracting(DriftResult::getStatus).containsExactly("MATCH", "MISMATCH", "MATCH");
+        assertThat(results.get(0).getDifference()).isEqualByComparingTo("0");
+        verify(bulkRepository, never()).getShadowBalances(anyList());
+        verify(kafkaTemplate, times(1)).send(any(), anyString(), any());
+
+        // Only re-checked accounts have their state rewritten, with the watermark they were checked at
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DriftResult>> saved = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> watermarks = ArgumentCaptor.forClass(List.class);
+        verify(bulkRepository).saveStates(saved.capture(), watermarks.capture(), anyList());
+        assertThat(saved.getValue()).extracting(DriftResult::getAccountId).containsExactly("A20", "A30");
+        assertThat(watermarks.getValue()).containsExactly(8L, 3L);
+    }
+
+    @Test
+    public void testMatchThatReliesOnInFlightCorrectionIsNotCached() {
+        BulkDriftService incremental = new BulkDriftService(bulkRepository, driftService, 10, true);
+        List<CBSBalanceEntry> entries = List.of(
+            new CBSBalanceEntry("A10", new BigDecimal("1000.00")),
+            new CBSBalanceEntry("A20", new BigDecimal("500.00"))
+        );
+        when(bulkRepository.getSnapshots(entries)).thenReturn(new Snapshot[]{
+            new Snapshot(new BigDecimal("950.00"), 8, false),
+            new Snapshot(new BigDecimal("500.00"), 3, false)
+        });
+        // A 50.00 correction for A10 is published but not in the ledger yet
+        when(pendingCorrections.findInFlight(List.of("A10", "A20"))).thenReturn(Map.of("A10", 5000L));
+
+        List<DriftResult> results = incremental.checkDrift(entries);
+
+        assertThat(results).extracting(DriftResult::getStatus).containsExactly("MATCH", "MATCH");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> states = ArgumentCaptor.forClass(List.class);
+        verify(bulkRepository).saveStates(anyList(), anyList(), states.capture());
+        assertThat(states.getValue()).containsExactly(ShadowBalanceBulkRepository.MATCH_IN_FLIGHT, "MATCH");
+    }
+
+    @Test
+    public void testIncrementalSkipsStateWriteWhenNothingChanged() {
+        BulkDriftService incremental = new BulkDriftService(bulkRepository, driftService, 10, true);
+        List<CBSBalanceEntry> entries = List.of(new CBSBalanceEntry("A10", new BigDecimal("1000.00")));
+        when(bulkRepository.getSnapshots(entries))
+            .thenReturn(new Snapshot[]{new Snapshot(new BigDecimal("1000.00"), 12, true)});
+
+        assertThat(incremental.checkDrift(entries)).extracting(DriftResult::getStatus).containsExactly("MATCH");
+        verify(bulkRepository, never()).saveStates(anyList(), anyList(), anyList());
+    }
+
+    @Test
+    public void testAsOfComparesAgainstBalanceAtCutoff() {
+        BulkDriftService incremental = new BulkDriftService(bulkRepository, driftService, 10, true);
+        AsOf cutoff = new AsOf(1700000000000L, null);
+        // A credit after the cutoff took A10 to 1100.00; at the cutoff it was 1000.00
+        when(bulkRepository.getShadowBalancesAsOf(List.of("A10"), cutoff))
+            .thenReturn(new BigDecimal[]{new BigDecimal("1000.00")});
+
+        List<DriftResult> results = incremental.checkDrift(
+            List.of(new CBSBalanceEntry("A10", new BigDecimal("1000.00"))), cutoff);
+
+        assertThat(results.get(0).getStatus()).isEqualTo("MATCH");
+        verify(bulkRepository, never()).getSnapshots(anyList());
+        verify(bulkRepository, never()).saveStates(anyList(), anyList(), anyList());
+        verify(kafkaTemplate, never()).send(any(), anyString(), any());
+    }
+}
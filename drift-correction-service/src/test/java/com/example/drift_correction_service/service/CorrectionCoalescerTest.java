@@ -0,0 +1,116 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Correction Coalescer Test
+ * Tests that corrections buffered for one account are netted into a single published event
+ */
+public class CorrectionCoalescerTest {
+
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private CorrectionCoalescer coalescer;
+
+    private DriftService driftService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        coalescer = new CorrectionCoalescer(publisher, 60_000, 3);
+        driftService = new DriftService(null, pendingCorrections, coalescer);
+    }
+
+    @Test
+    public void testCreditsAndDebitsNetIntoOneCorrection() {
+        CompletableFuture<CorrectionCoalescer.Delivery> first = coalescer.submit(correction("CORR-A10-1", "A10", "credit", "100.00", "Manual refund"));
+        CompletableFuture<CorrectionCoalescer.Delivery> second = coalescer.submit(correction("CORR-A10-2", "A10", "debit", "30.00", "Manual fee"));
+        CompletableFuture<CorrectionCoalescer.Delivery> other = coalescer.submit(correction("CORR-A20-single", "A20", "debit", "5.00", "Manual fee"));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+
+        coalescer.flush();
+
+        ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
+        verify(kafkaTemplate).send(anyString(), eq("A10"), captor.capture());
+        CorrectionEvent merged = captor.getValue();
+        assertThat(merged.getType()).isEqualTo("credit");
+        assertThat(merged.getAmount()).isEqualByComparingTo("70.00");
+        assertThat(merged.getReasons()).containsExactly("Manual refund", "Manual fee");
+        assertThat(merged.getEventId()).matches("CORR-A10-merged-[a-f0-9]{8}(-[a-f0-9]{4}){3}-[a-f0-9]{12}");
+        verify(pendingCorrections).record(merged);
+
+        assertThat(first.join()).isEqualTo(new CorrectionCoalescer.Delivery(merged.getEventId(), CorrectionPublisher.PUBLISHED));
+        assertThat(second.join()).isEqualTo(first.join());
+        // A lone correction is published as it is
+        assertThat(other.join().correctionEventId()).isEqualTo("CORR-A20-single");
+    }
+
+    @Test
+    public void testCorrectionsThatCancelOutPublishNothing() {
+        CompletableFuture<CorrectionCoalescer.Delivery> credit = coalescer.submit(correction("CORR-A10-1", "A10", "credit", "50.00", "Manual"));
+        CompletableFuture<CorrectionCoalescer.Delivery> debit = coalescer.submit(correction("CORR-A10-2", "A10", "debit", "50.00", "Reversal"));
+
+        coalescer.flush();
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(pendingCorrections, never()).record(any());
+        assertThat(credit.join().status()).isEqualTo(CorrectionCoalescer.NETTED);
+        assertThat(debit.join().status()).isEqualTo(CorrectionCoalescer.NETTED);
+    }
+
+    @Test
+    public void testFullBufferFlushesWithoutWaitingForWindow() {
+        coalescer.submit(correction("CORR-A10-1", "A10", "credit", "1.00", "r1"));
+        coalescer.submit(correction("CORR-A20-1", "A20", "credit", "2.00", "r2"));
+        // Same eventId again is a repeat, not a third correction
+        coalescer.submit(correction("CORR-A20-1", "A20", "credit", "2.00", "r2"));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+
+        coalescer.submit(correction("CORR-A30-1", "A30", "credit", "3.00", "r3"));
+
+        verify(kafkaTemplate, times(3)).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    public void testBufferedCorrectionsCountAsInFlight() {
+        when(pendingCorrections.findInFlight(List.of("A10"))).thenReturn(Map.of("A10", 1000L));
+        coalescer.submit(correction("CORR-A10-1", "A10", "debit", "2.50", "Manual"));
+
+        assertThat(driftService.findInFlight(List.of("A10"))).containsEntry("A10", 750L);
+    }
+
+    private static CorrectionEvent correction(String eventId, String accountId, String type, String amount, String reason) {
+        CorrectionEvent correction = new CorrectionEvent();
+        correction.setEventId(eventId);
+        correction.setAccountId(accountId);
+        correction.setType(type);
+        correction.setAmount(new BigDecimal(amount));
+        correction.setTimestamp(System.currentTimeMillis());
+        correction.setReason(reason);
+        return correction;
+    }
+}
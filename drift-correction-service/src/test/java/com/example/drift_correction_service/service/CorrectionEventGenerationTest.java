@@ -1,6 +1,7 @@
 package com.example.drift_correction_service.service;
 
 import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -21,6 +22,9 @@ import static org.mockito.Mockito.*;
  */
 public class CorrectionEventGenerationTest {
 
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -29,7 +33,8 @@ public class CorrectionEventGenerationTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        driftService = new DriftService(null, kafkaTemplate);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        driftService = new DriftService(null, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
     }
 
     @Test
@@ -0,0 +1,111 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.model.DriftResult;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Correction Publisher Test
+ * Tests the in-flight window, per-result delivery status and release of aborted transactions
+ */
+public class CorrectionPublisherTest {
+
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DriftService driftService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 1);
+        driftService = new DriftService(null, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
+    }
+
+    @Test
+    public void testPublishWaitsForFreeWindow() throws Exception {
+        CompletableFuture<SendResult<String, Object>> first = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+            .thenReturn(first)
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletableFuture<CorrectionCoalescer.Delivery> firstDelivery = driftService.publishCorrectionEvent(correction("A10"));
+        CompletableFuture<CorrectionCoalescer.Delivery> secondDelivery = CompletableFuture.supplyAsync(
+            () -> driftService.publishCorrectionEvent(correction("A20"))).thenCompose(d -> d);
+
+        // The window holds one unacknowledged send
+        Thread.sleep(200);
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any());
+        assertThat(secondDelivery).isNotDone();
+
+        first.complete(null);
+
+        assertThat(secondDelivery.get(5, TimeUnit.SECONDS).status()).isEqualTo(CorrectionPublisher.PUBLISHED);
+        assertThat(firstDelivery.get().status()).isEqualTo(CorrectionPublisher.PUBLISHED);
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    public void testDeliveryStatusIsReportedPerResult() {
+        when(kafkaTemplate.send(anyString(), eq("A10"), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(anyString(), eq("A20"), any())).thenReturn(CompletableFuture.failedFuture(new KafkaException("timeout")));
+
+        DriftResult delivered = driftService.evaluateDrift(new CBSBalanceEntry("A10", new BigDecimal("100.00")), BigDecimal.ZERO);
+        DriftResult failed = driftService.evaluateDrift(new CBSBalanceEntry("A20", new BigDecimal("100.00")), BigDecimal.ZERO);
+        DriftResult match = driftService.evaluateDrift(new CBSBalanceEntry("A30", BigDecimal.ZERO), BigDecimal.ZERO);
+        driftService.awaitDeliveries(List.of(delivered, failed, match));
+
+        assertThat(delivered.getDeliveryStatus()).isEqualTo(CorrectionPublisher.PUBLISHED);
+        assertThat(failed.getDeliveryStatus()).isEqualTo(CorrectionPublisher.FAILED);
+        assertThat(match.getDeliveryStatus()).isNull();
+        verify(pendingCorrections).release(failed.getCorrectionEventId());
+        verify(pendingCorrections, never()).release(delivered.getCorrectionEventId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAbortedTransactionReleasesItsCorrections() {
+        when(kafkaTemplate.isTransactional()).thenReturn(true);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.executeInTransaction(any())).thenAnswer(invocation -> {
+            KafkaOperations.OperationsCallback<String, Object, Object> callback = invocation.getArgument(0);
+            callback.doInOperations(kafkaTemplate);
+            throw new KafkaException("commit failed");
+        });
+
+        assertThatThrownBy(() -> driftService.inCorrectionTransaction(() -> driftService.evaluateDrift(
+            new CBSBalanceEntry("A10", new BigDecimal("100.00")), BigDecimal.ZERO)))
+            .isInstanceOf(KafkaException.class);
+
+        verify(pendingCorrections).record(any(CorrectionEvent.class));
+        verify(pendingCorrections).release(anyString());
+    }
+
+    private CorrectionEvent correction(String accountId) {
+        return driftService.generateCorrectionEvent(accountId, "credit", new BigDecimal("5.00"), "Test");
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.repository.BucketDigestRepository;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository;
+import com.example.drift_correction_service.util.BalanceDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Digest Drift Test
+ * Tests that only accounts in buckets whose digests differ are checked account by account
+ */
+public class DigestDriftTest {
+
+    @Mock
+    private BucketDigestRepository digestRepository;
+
+    @Mock
+    private ShadowBalanceBulkRepository bulkRepository;
+
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DigestDriftService digestDriftService;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        DriftService driftService = new DriftService(null, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
+        BulkDriftService bulkDriftService = new BulkDriftService(bulkRepository, driftService, 100, false);
+        digestDriftService = new DigestDriftService(digestRepository, bulkDriftService, 100);
+    }
+
+    @Test
+    public void testMatchingBookChecksNoAccounts() throws IOException {
+        Path book = csv("""
+            accountId,reportedBalance
+            A10,100.00
+            A20,5.00
+            A30,0
+            """);
+        when(digestRepository.findDigests()).thenReturn(ledgerDigests("A10", 10000, "A20", 500));
+
+        DigestDriftService.Report report = digestDriftService.checkDrift(book, CbsBalanceReader.Format.CSV);
+
+        assertThat(report.differingBuckets()).isZero();
+        assertThat(report.checkedAccounts()).isZero();
+        assertThat(report.results()).isEmpty();
+        verify(bulkRepository, never()).getShadowBalances(anyList());
+    }
+
+    @Test
+    public void testDrillsDownOnlyIntoDifferingBucket() throws IOException {
+        // Ledger has A20 at 4.00, CBS says 5.00
+        Path book = csv("""
+            A10,100.00
+            A20,5.00
+            """);
+        assertThat(BalanceDigest.bucket("A10")).isNotEqualTo(BalanceDigest.bucket("A20"));
+        when(digestRepository.findDigests()).thenReturn(ledgerDigests("A10", 10000, "A20", 400));
+        when(bulkRepository.getShadowBalances(List.of("A20"))).thenReturn(new BigDecimal[]{new BigDecimal("4.00")});
+
+        DigestDriftService.Report report = digestDriftService.checkDrift(book, CbsBalanceReader.Format.CSV);
+
+        assertThat(report.totalAccounts()).isEqualTo(2);
+        assertThat(report.differingBuckets()).isEqualTo(1);
+        assertThat(report.checkedAccounts()).isEqualTo(1);
+        assertThat(report.mismatches()).isEqualTo(1);
+        assertThat(report.unexplainedBuckets()).isEmpty();
+        assertThat(report.results().get(0).getAccountId()).isEqualTo("A20");
+        assertThat(report.results().get(0).getMismatchType()).isEqualTo("missing_credit");
+    }
+
+    @Test
+    public void testLedgerOnlyAccountLeavesBucketUnexplained() throws IOException {
+        Path book = csv("A10,100.00\n");
+        long[] digests = ledgerDigests("A10", 10000, "A20", 0);
+        // A ledger account the CBS file does not mention
+        digests[BalanceDigest.bucket("A99")] ^= BalanceDigest.term("A99", 700);
+        when(digestRepository.findDigests()).thenReturn(digests);
+
+        DigestDriftService.Report report = digestDriftService.checkDrift(book, CbsBalanceReader.Format.CSV);
+
+        assertThat(report.differingBuckets()).isEqualTo(1);
+        assertThat(report.unexplainedBuckets()).containsExactly(BalanceDigest.bucket("A99"));
+    }
+
+    @Test
+    public void testRepeatedAccountIsCheckedAndInvalidLinesCounted() throws IOException {
+        Path book = ndjson("""
+            {"accountId": "A10", "reportedBalance": 100.00}
+            {"accountId": "A10", "reportedBalance": 100.00}
+            {"accountId": "A20"}
+            """);
+        when(digestRepository.findDigests()).thenReturn(ledgerDigests("A10", 10000, "A20", 0));
+        when(bulkRepository.getShadowBalances(List.of("A10", "A10")))
+            .thenReturn(new BigDecimal[]{new BigDecimal("100.00"), new BigDecimal("100.00")});
+
+        DigestDriftService.Report report = digestDriftService.checkDrift(book, CbsBalanceReader.Format.NDJSON);
+
+        // The two A10 lines cancel out, so their bucket is checked account by account
+        assertThat(report.invalidLines()).isEqualTo(1);
+        assertThat(report.differingBuckets()).isEqualTo(1);
+        assertThat(report.checkedAccounts()).isEqualTo(2);
+        assertThat(report.mismatches()).isZero();
+    }
+
+    private Path csv(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("cbs.csv"), content);
+    }
+
+    private Path ndjson(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("cbs.ndjson"), content);
+    }
+
+    private long[] ledgerDigests(String firstAccount, long firstBalance, String secondAccount, long secondBalance) {
+        long[] digests = new long[BalanceDigest.BUCKETS];
+        digests[BalanceDigest.bucket(firstAccount)] ^= BalanceDigest.term(firstAccount, firstBalance);
+        digests[BalanceDigest.bucket(secondAccount)] ^= BalanceDigest.term(secondAccount, secondBalance);
+        return digests;
+    }
+}
@@ -4,6 +4,7 @@ import com.example.drift_correction_service.model.CBSBalanceEntry;
 import com.example.drift_correction_service.model.CorrectionEvent;
 import com.example.drift_correction_service.model.DriftResult;
 import com.example.drift_correction_service.repository.LedgerEntryRepository;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -29,6 +30,9 @@ public class DriftDetectionTest {
     @Mock
     private LedgerEntryRepository ledgerRepository;
 
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -37,7 +41,8 @@ public class DriftDetectionTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        driftService = new DriftService(ledgerRepository, kafkaTemplate);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        driftService = new DriftService(ledgerRepository, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
     }
 
     @Test
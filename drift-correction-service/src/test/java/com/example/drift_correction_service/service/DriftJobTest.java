@@ -0,0 +1,133 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.repository.DriftJobRepository;
+import com.example.drift_correction_service.repository.DriftJobRepository.JobInput;
+import com.example.drift_correction_service.repository.DriftJobRepository.LeaseLostException;
+import com.example.drift_correction_service.repository.DriftJobRepository.WorkItem;
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drift Job Test
+ * Tests that claimed account-hash ranges run chunk by chunk, resume from their last committed
+ * chunk, and are given up when the lease moves to another instance
+ */
+public class DriftJobTest {
+
+    private static final String OWNER = "drift-test";
+
+    @Mock
+    private DriftJobRepository jobRepository;
+
+    @Mock
+    private ShadowBalanceBulkRepository bulkRepository;
+
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DriftJobService jobService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        DriftService driftService = new DriftService(null, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
+        BulkDriftService bulkDriftService = new BulkDriftService(bulkRepository, driftService, 2, false);
+        jobService = new DriftJobService(jobRepository, bulkDriftService, 2, 2, 4, 60, 3, 600, OWNER);
+
+        when(bulkRepository.getShadowBalances(anyList())).thenAnswer(invocation -> {
+            List<String> accountIds = invocation.getArgument(0);
+            BigDecimal[] balances = new BigDecimal[accountIds.size()];
+            java.util.Arrays.fill(balances, new BigDecimal("100.00"));
+            return balances;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    public void testResumesRangeAfterLastCommittedInput() {
+        // Inputs up to seq 7 were committed by the previous owner
+        WorkItem item = new WorkItem("DRIFT-1", 0, 0, 16384, 7);
+        when(jobRepository.loadInputs(item, 7, 2)).thenReturn(List.of(input(9, "A9"), input(12, "A12")));
+        when(jobRepository.loadInputs(item, 12, 2)).thenReturn(List.of(input(20, "A20")));
+        when(jobRepository.loadInputs(item, 20, 2)).thenReturn(List.of());
+        when(jobRepository.completeWorkItem(item, OWNER)).thenReturn(true);
+
+        jobService.process(item);
+
+        verify(jobRepository, never()).loadInputs(eq(item), eq(-1), anyInt());
+        verify(jobRepository, times(2)).saveChunk(eq(item), eq(OWNER), eq(60), anyList(), anyList());
+        verify(jobRepository).completeWorkItem(item, OWNER);
+    }
+
+    @Test
+    public void testLostLeaseStopsWithoutReleasing() {
+        WorkItem item = new WorkItem("DRIFT-2", 1, 16384, 32768, -1);
+        when(jobRepository.loadInputs(item, -1, 2)).thenReturn(List.of(input(0, "A1")));
+        doThrow(new LeaseLostException(item))
+            .when(jobRepository).saveChunk(eq(item), eq(OWNER), eq(60), anyList(), anyList());
+
+        jobService.process(item);
+
+        verify(jobRepository, never()).completeWorkItem(any(), anyString());
+        verify(jobRepository, never()).releaseWorkItem(any(), anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    public void testFailedRangeIsReleasedForRetry() {
+        WorkItem item = new WorkItem("DRIFT-3", 2, 32768, 49152, -1);
+        when(jobRepository.loadInputs(item, -1, 2)).thenThrow(new IllegalStateException("database unavailable"));
+
+        jobService.process(item);
+
+        verify(jobRepository).releaseWorkItem(item, OWNER, "database unavailable", 3);
+        verify(jobRepository, never()).completeWorkItem(any(), anyString());
+    }
+
+    @Test
+    public void testClaimsNoMoreThanFreeWorkers() {
+        when(jobRepository.claimWorkItems(OWNER, 60, 2)).thenReturn(List.of());
+
+        jobService.claimAndProcess();
+        jobService.claimAndProcess();
+
+        // Nothing was claimed, so both workers are still free on the next poll
+        verify(jobRepository, times(2)).claimWorkItems(OWNER, 60, 2);
+    }
+
+    @Test
+    public void testAccountHashRangesCoverHashSpace() {
+        for (String accountId : List.of("A1", "A10", "ACC-99999", "")) {
+            int hash = DriftJobRepository.accountHash(accountId);
+            assertThat(hash).isBetween(0, DriftJobRepository.HASH_SPACE - 1);
+        }
+    }
+
+    private JobInput input(int seq, String accountId) {
+        return new JobInput(seq, new CBSBalanceEntry(accountId, new BigDecimal("100.00")));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import com.example.drift_correction_service.repository.ShadowBalanceBulkRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Streaming Drift Test
+ * Tests that CBS files are read in chunks and results come back as NDJSON with a summary record
+ */
+public class DriftStreamTest {
+
+    @Mock
+    private ShadowBalanceBulkRepository bulkRepository;
+
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DriftStreamService driftStreamService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        DriftService driftService = new DriftService(null, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
+        BulkDriftService bulkDriftService = new BulkDriftService(bulkRepository, driftService, 2, false);
+        driftStreamService = new DriftStreamService(bulkDriftService, 2);
+
+        // Every account has a shadow balance of 100.00
+        when(bulkRepository.getShadowBalances(anyList())).thenAnswer(invocation -> {
+            List<String> accountIds = invocation.getArgument(0);
+            BigDecimal[] balances = new BigDecimal[accountIds.size()];
+            java.util.Arrays.fill(balances, new BigDecimal("100.00"));
+            return balances;
+        });
+    }
+
+    @Test
+    public void testGzippedCsvStreamsResultsAndSummary() throws IOException {
+        String csv = "accountId,reportedBalance\nA10,100.00\nA20,150.00\n\nA30,100.00\n";
+
+        List<JsonNode> lines = stream(new GZIPInputStream(new ByteArrayInputStream(gzip(csv))), CbsBalanceReader.Format.CSV);
+
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0).get("accountId").asText()).isEqualTo("A10");
+        assertThat(lines.get(1).get("status").asText()).isEqualTo("MISMATCH");
+        assertThat(lines.get(2).get("accountId").asText()).isEqualTo("A30");
+        JsonNode summary = lines.get(3).get("summary");
+        assertThat(summary.get("totalAccounts").asLong()).isEqualTo(3);
+        assertThat(summary.get("mismatches").asLong()).isEqualTo(1);
+
+        // Three entries with a chunk size of 2
+        verify(bulkRepository, times(2)).getShadowBalances(anyList());
+    }
+
+    @Test
+    public void testNdjsonReportsInvalidLinesAndContinues() throws IOException {
+        String ndjson = """
+            {"accountId":"A10","reportedBalance":100.00}
+            {"accountId":"A20"
+            {"accountId":"A30","reportedBalance":"abc"}
+            {"accountId":"A40","reportedBalance":99.00,"branch":"X"}
+            """;
+
+        List<JsonNode> lines = stream(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                CbsBalanceReader.Format.NDJSON);
+
+        assertThat(lines).extracting(line -> line.has("line") ? "error:" + line.get("line").asLong()
+                : line.has("summary") ? "summary" : line.get("accountId").asText())
+            .containsExactly("error:2", "A10", "error:3", "A40", "summary");
+        JsonNode summary = lines.get(4).get("summary");
+        assertThat(summary.get("totalAccounts").asLong()).isEqualTo(2);
+        assertThat(summary.get("invalidLines").asLong()).isEqualTo(2);
+    }
+
+    private List<JsonNode> stream(java.io.InputStream in, CbsBalanceReader.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        driftStreamService.streamDrift(in, format, out);
+
+        List<JsonNode> lines = new java.util.ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private byte[] gzip(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.drift_correction_service.service;
+
+import com.example.drift_correction_service.model.CBSBalanceEntry;
+import com.example.drift_correction_service.model.CorrectionEvent;
+import com.example.drift_correction_service.model.DriftResult;
+import com.example.drift_correction_service.repository.LedgerEntryRepository;
+import com.example.drift_correction_service.repository.PendingCorrectionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pending Correction Test
+ * Tests that in-flight corrections are subtracted from the difference and that automatic
+ * correction ids are deterministic
+ */
+public class PendingCorrectionTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+
+    @Mock
+    private PendingCorrectionRepository pendingCorrections;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DriftService driftService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CorrectionPublisher publisher = new CorrectionPublisher(kafkaTemplate, pendingCorrections, "transactions.corrections", 100);
+        driftService = new DriftService(ledgerRepository, pendingCorrections, new CorrectionCoalescer(publisher, 0, 100));
+    }
+
+    @Test
+    public void testInFlightCorrectionCoversDifference() {
+        // A 50.00 credit from the previous run has not reached the ledger yet
+        when(ledgerRepository.getShadowBalance("A20")).thenReturn(new BigDecimal("950.00"));
+        when(pendingCorrections.findInFlight(List.of("A20"))).thenReturn(Map.of("A20", 5000L));
+
+        List<DriftResult> results = driftService.checkDrift(List.of(new CBSBalanceEntry("A20", new BigDecimal("1000.00"))));
+
+        assertThat(results.get(0).getStatus()).isEqualTo("MATCH");
+        verify(kafkaTemplate, never()).send(any(), anyString(), any());
+    }
+
+    @Test
+    public void testOnlyRemainingDifferenceIsCorrected() {
+        CorrectionEvent correction = mismatch(new BigDecimal("950.00"), 3000L);
+
+        assertThat(correction.getType()).isEqualTo("credit");
+        assertThat(correction.getAmount()).isEqualByComparingTo("20.00");
+        verify(pendingCorrections).record(correction);
+    }
+
+    @Test
+    public void testRerunReusesCorrectionId() {
+        String first = mismatch(new BigDecimal("950.00"), 0L).getEventId();
+        reset(kafkaTemplate);
+        String second = mismatch(new BigDecimal("950.00"), 0L).getEventId();
+        reset(kafkaTemplate);
+        String afterLedgerMoved = mismatch(new BigDecimal("960.00"), 0L).getEventId();
+
+        assertThat(first).matches("CORR-A20-[a-f0-9]{8}(-[a-f0-9]{4}){3}-[a-f0-9]{12}");
+        assertThat(second).isEqualTo(first);
+        assertThat(afterLedgerMoved).isNotEqualTo(first);
+    }
+
+    @Test
+    public void testFailedPublishIsReleased() {
+        CorrectionEvent correction = driftService.generateCorrectionEvent("A20", "credit", new BigDecimal("5.00"), "Test");
+        when(kafkaTemplate.send(any(), anyString(), any())).thenThrow(new RuntimeException("broker down"));
+
+        driftService.publishCorrectionEvent(correction);
+
+        verify(pendingCorrections).record(correction);
+        verify(pendingCorrections).release(correction.getEventId());
+    }
+
+    private CorrectionEvent mismatch(BigDecimal shadowBalance, long inFlightMinor) {
+        driftService.evaluateDrift(new CBSBalanceEntry("A20", new BigDecimal("1000.00")), shadowBalance, inFlightMinor);
+
+        ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
+        verify(kafkaTemplate).send(any(), eq("A20"), captor.capture());
+        return captor.getValue();
+    }
+}
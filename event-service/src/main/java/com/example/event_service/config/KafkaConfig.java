@@ -1,9 +1,12 @@
 package com.example.event_service.config;
 
+import com.example.event_service.model.Event;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -22,10 +25,17 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ProducerFactory<String, Object> producerFactory(ObjectMapper objectMapper) {
+    public ProducerFactory<String, Object> producerFactory(ObjectMapper objectMapper,
+                                                           @Value("${ledger.wire-format:json}") String wireFormat) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, System.getenv().getOrDefault("KAFKA_BOOTSTRAP", "localhost:9092"));
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd");
+        // The outbox relay retries whole batches; the idempotent producer keeps broker-side
+        // retries from duplicating or reordering events within a partition
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
 
         // Custom JSON serializer using Jackson ObjectMapper
         Serializer<Object> jsonSerializer = new Serializer<>() {
@@ -37,9 +47,33 @@ public class KafkaConfig {
                     throw new RuntimeException("Error serializing object to JSON", e);
                 }
             }
+
+            @Override
+            public byte[] serialize(String topic, Headers headers, Object data) {
+                LedgerEventCodec.setContentType(headers, LedgerEventCodec.JSON_CONTENT_TYPE);
+                return serialize(topic, data);
+            }
         };
 
-        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), jsonSerializer);
+        // Opt-in compact binary encoding for events; anything else still goes out as JSON
+        Serializer<Object> binarySerializer = new Serializer<>() {
+            @Override
+            public byte[] serialize(String topic, Object data) {
+                return data instanceof Event event ? LedgerEventCodec.encode(event) : jsonSerializer.serialize(topic, data);
+            }
+
+            @Override
+            public byte[] serialize(String topic, Headers headers, Object data) {
+                if (!(data instanceof Event event)) {
+                    return jsonSerializer.serialize(topic, headers, data);
+                }
+                LedgerEventCodec.setContentType(headers, LedgerEventCodec.BINARY_CONTENT_TYPE);
+                return LedgerEventCodec.encode(event);
+            }
+        };
+
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(),
+                "binary".equalsIgnoreCase(wireFormat) ? binarySerializer : jsonSerializer);
     }
 
     @Bean
@@ -47,4 +81,3 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory);
     }
 }
-
@@ -1,21 +1,44 @@
 package com.example.event_service.controller;
 
 import com.example.event_service.model.Event;
-import com.example.event_service.repository.EventRepository;
+import com.example.event_service.service.EventGroupCommitter;
+import com.example.event_service.service.EventIngestService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/events")
@@ -24,15 +47,28 @@ public class EventController {
 
     private static final Logger log = LoggerFactory.getLogger(EventController.class);
 
-    private final EventRepository repository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private static final String NDJSON = "application/x-ndjson";
 
-    @Value("${kafka.topics.transactions-raw:transactions.raw}")
-    private String transactionsRawTopic;
+    private final EventIngestService ingestService;
+    private final EventGroupCommitter groupCommitter;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader eventReader;
+    private final Validator validator;
+    private final int maxBatchSize;
 
-    public EventController(EventRepository repository, KafkaTemplate<String, Object> kafkaTemplate) {
-        this.repository = repository;
-        this.kafkaTemplate = kafkaTemplate;
+    public EventController(EventIngestService ingestService,
+                           EventGroupCommitter groupCommitter,
+                           ObjectMapper objectMapper,
+                           Validator validator,
+                           @Value("${events.batch.max-size:1000}") int maxBatchSize) {
+        this.ingestService = ingestService;
+        this.groupCommitter = groupCommitter;
+        this.objectMapper = objectMapper;
+        // Lenient like the single-event endpoint: unknown properties are ignored
+        this.eventReader = objectMapper.readerFor(Event.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.validator = validator;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @PostMapping
@@ -56,29 +92,14 @@ public class EventController {
             }
             event.setType(type); // normalize to lowercase
 
-            // Idempotency check
-            Optional<Event> existing = repository.findByEventId(event.getEventId());
-            if (existing.isPresent()) {
+            // Idempotency check, then the event and its outbox entry in one transaction shared
+            // with concurrent submissions; OutboxRelay publishes it to Kafka
+            if (!awaitCommit(event, traceId)) {
                 log.warn("Duplicate eventId detected: {}", event.getEventId());
                 return ResponseEntity.status(HttpStatus.CONFLICT)
                         .body(Map.of("error", "duplicate eventId", "eventId", event.getEventId()));
             }
-
-            // Persist for traceability (timestamp auto-generated via @PrePersist)
-            Event saved = repository.save(event);
-            log.info("Event persisted: eventId={}", saved.getEventId());
-
-            // Produce to Kafka
-            kafkaTemplate.send(transactionsRawTopic, event.getAccountId(), event)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.info("Event published to Kafka: eventId={}, topic={}",
-                                    event.getEventId(), transactionsRawTopic);
-                        } else {
-                            log.error("Failed to publish event to Kafka: eventId={}",
-                                    event.getEventId(), ex);
-                        }
-                    });
+            log.info("Event persisted and queued for publishing: eventId={}", event.getEventId());
 
             return ResponseEntity.status(HttpStatus.ACCEPTED)
                     .body(Map.of(
@@ -87,6 +108,15 @@ public class EventController {
                             "traceId", traceId != null ? traceId : "none"
                     ));
 
+        } catch (RejectedExecutionException ex) {
+            log.warn("Rejecting eventId={}: {}", event.getEventId(), ex.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "event service busy, retry later"));
+        } catch (TimeoutException ex) {
+            // The commit may still succeed; a retry then gets 409 for the same eventId
+            log.warn("Commit not confirmed in time for eventId={}", event.getEventId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "event not confirmed in time, retry later"));
         } catch (DataIntegrityViolationException ex) {
             log.error("Data integrity violation for eventId={}", event.getEventId(), ex);
             return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -99,5 +129,164 @@ public class EventController {
             MDC.clear();
         }
     }
-}
 
+    /**
+     * Accept a JSON array or an NDJSON stream of events. Each item is validated on its own,
+     * the valid ones are stored in one transaction, and the response reports every item as
+     * queued, duplicate or invalid, in request order.
+     */
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<?> createBatch(InputStream body,
+                                         @RequestHeader(name = "Content-Type") String contentType,
+                                         @RequestHeader(name = "X-Trace-Id", required = false) String traceId) {
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        try {
+            List<JsonNode> items;
+            try {
+                items = readItems(body, MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON));
+            } catch (JsonProcessingException | IllegalArgumentException ex) {
+                log.warn("Unreadable event batch: {}", ex.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "body must be a JSON array or NDJSON stream of events"));
+            }
+            if (items.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "batch is empty"));
+            }
+            if (items.size() > maxBatchSize) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(Map.of("error", "batch exceeds " + maxBatchSize + " events"));
+            }
+
+            // One validation pass; invalid items are reported and left out of the insert
+            List<BatchItem> results = new ArrayList<>(items.size());
+            List<Event> valid = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                JsonNode item = items.get(i);
+                String eventId = item != null && item.hasNonNull("eventId") ? item.get("eventId").asText() : null;
+                Event event = item != null ? readEvent(item) : null;
+                String error = event != null ? validate(event) : "malformed event";
+                if (error != null) {
+                    results.add(new BatchItem(i, eventId, "invalid", error));
+                } else {
+                    event.setType(event.getType().toLowerCase());
+                    valid.add(event);
+                    results.add(new BatchItem(i, eventId, null, null));
+                }
+            }
+
+            Set<String> stored = valid.isEmpty() ? Set.of() : ingestService.acceptBatch(valid, traceId);
+
+            // Stored ids are queued once, at their first occurrence; everything else valid is a duplicate
+            Set<String> reported = new HashSet<>();
+            int queued = 0;
+            int duplicates = 0;
+            for (int i = 0; i < results.size(); i++) {
+                BatchItem result = results.get(i);
+                if (result.status() != null) {
+                    continue;
+                }
+                if (stored.contains(result.eventId()) && reported.add(result.eventId())) {
+                    results.set(i, new BatchItem(result.index(), result.eventId(), "queued", null));
+                    queued++;
+                } else {
+                    results.set(i, new BatchItem(result.index(), result.eventId(), "duplicate", null));
+                    duplicates++;
+                }
+            }
+            int invalid = results.size() - queued - duplicates;
+            log.info("Event batch processed: {} queued, {} duplicate, {} invalid", queued, duplicates, invalid);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("queued", queued);
+            response.put("duplicates", duplicates);
+            response.put("invalid", invalid);
+            response.put("traceId", traceId != null ? traceId : "none");
+            response.put("results", results);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (Exception ex) {
+            log.error("Unexpected error processing event batch", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "internal server error"));
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private boolean awaitCommit(Event event, String traceId) throws TimeoutException {
+        try {
+            return groupCommitter.submit(event, traceId).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof TimeoutException timeout) {
+                throw timeout;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Read the batch item by item, stopping after maxBatchSize + 1 items so an oversized batch
+     * is rejected without reading or parsing the rest of it
+     */
+    private List<JsonNode> readItems(InputStream body, boolean jsonArray) throws IOException {
+        List<JsonNode> items = new ArrayList<>();
+        if (jsonArray) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException("expected a JSON array");
+                }
+                while (items.size() <= maxBatchSize && parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() == null) {
+                        throw new IllegalArgumentException("unterminated JSON array");
+                    }
+                    items.add(objectMapper.readTree(parser));
+                }
+            }
+            return items;
+        }
+        // NDJSON: a malformed line is reported as an invalid item, not a rejected batch
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while (items.size() <= maxBatchSize && (line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                items.add(objectMapper.readTree(line));
+            } catch (JsonProcessingException ex) {
+                items.add(null);
+            }
+        }
+        return items;
+    }
+
+    private Event readEvent(JsonNode item) {
+        try {
+            return eventReader.readValue(item);
+        } catch (IOException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private String validate(Event event) {
+        Set<ConstraintViolation<Event>> violations = validator.validate(event);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .reduce((a, b) -> a + "; " + b)
+                .orElse(null);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record BatchItem(int index, String eventId, String status, String error) {}
+}
@@ -1,6 +1,6 @@
 package com.example.event_service.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -37,7 +37,9 @@ public class Event {
     @Column(name = "amount", nullable = false)
     private BigDecimal amount;
 
-    @JsonIgnore
+    // Set when the event is accepted and published with it, in JSON as in the binary
+    // encoding; a timestamp sent by the client is ignored
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Column(name = "timestamp", nullable = false)
     private Long timestamp;
 
@@ -0,0 +1,78 @@
+package com.example.event_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partition maintenance for event_dedup. There is one partition per day, named
+ * event_dedup_pYYYYMMDD, so an expired day is dropped as a whole table instead of deleted
+ * row by row.
+ */
+@Repository
+public class EventDedupRepository {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Pattern PARTITION_NAME = Pattern.compile("event_dedup_p(\\d{8})");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventDedupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Today in the database's time zone, the day inserts use for CURRENT_DATE
+     */
+    public LocalDate currentDate() {
+        return jdbcTemplate.queryForObject("SELECT CURRENT_DATE", LocalDate.class);
+    }
+
+    /**
+     * Days that have a partition
+     */
+    public List<LocalDate> findPartitionDays() {
+        List<String> names = jdbcTemplate.queryForList("""
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = CAST('event_dedup' AS regclass)
+        """, String.class);
+
+        List<LocalDate> days = new ArrayList<>(names.size());
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                days.add(LocalDate.parse(matcher.group(1), PARTITION_SUFFIX));
+            }
+        }
+        return days;
+    }
+
+    public void createPartition(LocalDate day) {
+        // Names and bounds come from a LocalDate, never from input
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day)
+                + " PARTITION OF event_dedup FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+    }
+
+    public void dropPartition(LocalDate day) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    /**
+     * Delete rows up to and including the given day from the default partition
+     */
+    public int purgeDefault(LocalDate through) {
+        return jdbcTemplate.update("DELETE FROM event_dedup_default WHERE day <= ?", through);
+    }
+
+    private static String partitionName(LocalDate day) {
+        return "event_dedup_p" + day.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.event_service.repository;
+
+import com.example.event_service.model.Event;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC writes to the events table. Going through JPA would cost a select and an insert
+ * per event, because the assigned eventId makes save() merge before it persists.
+ *
+ * Duplicates are detected through event_dedup, which holds a 128-bit hash of every eventId
+ * accepted within the dedup window, so the check does not depend on the events table, which
+ * only keeps recent events.
+ */
+@Repository
+public class EventJdbcRepository {
+
+    // Claims the eventId's hash in event_dedup for today, then stores the event. findExisting
+    // has already checked earlier days; a concurrent writer that stored the same eventId after
+    // that lookup makes one of the two inserts a no-op, which skips the row rather than
+    // failing the whole batch. Events accepted before event_dedup existed are still caught
+    // by the events primary key
+    private static final String INSERT_SQL = """
+        WITH claimed AS (
+            INSERT INTO event_dedup (id_hash, day)
+            VALUES (CAST(md5(CAST(? AS TEXT)) AS UUID), CURRENT_DATE)
+            ON CONFLICT DO NOTHING
+            RETURNING id_hash
+        )
+        INSERT INTO events (event_id, account_id, type, amount, timestamp)
+        SELECT ?, ?, ?, ?, ? FROM claimed
+        ON CONFLICT (event_id) DO NOTHING
+    """;
+
+    // Same as INSERT_SQL with the dedup lookup over all live days folded in, plus the outbox
+    // entry for a new event. The outbox takes the amount as submitted, like the batch path,
+    // rather than the value stored in the BIGINT column
+    private static final String INSERT_WITH_OUTBOX_SQL = """
+        WITH hash AS (
+            SELECT CAST(md5(CAST(? AS TEXT)) AS UUID) AS id_hash
+        ),
+        claimed AS (
+            INSERT INTO event_dedup (id_hash, day)
+            SELECT id_hash, CURRENT_DATE FROM hash
+            WHERE NOT EXISTS (SELECT 1 FROM event_dedup d WHERE d.id_hash = hash.id_hash)
+            ON CONFLICT DO NOTHING
+            RETURNING id_hash
+        ),
+        inserted AS (
+            INSERT INTO events (event_id, account_id, type, amount, timestamp)
+            SELECT ?, ?, ?, ?, ? FROM claimed
+            ON CONFLICT (event_id) DO NOTHING
+            RETURNING event_id, account_id, type, timestamp
+        )
+        INSERT INTO outbox (event_id, account_id, type, amount, timestamp, trace_id)
+        SELECT event_id, account_id, type, CAST(? AS NUMERIC), timestamp, CAST(? AS VARCHAR)
+        FROM inserted
+    """;
+
+    // Moves one batch of old events to events_archive. Their hashes are re-claimed for the
+    // day they were accepted, as long as that day is still inside the dedup window, so events
+    // stored before event_dedup existed stay deduplicated after they leave the events table
+    private static final String ARCHIVE_SQL = """
+        WITH moved AS (
+            DELETE FROM events
+            WHERE event_id IN (
+                SELECT event_id FROM events
+                WHERE timestamp < ?
+                ORDER BY timestamp
+                LIMIT ?
+            )
+            RETURNING event_id, account_id, type, amount, timestamp, created_at
+        ),
+        kept AS (
+            INSERT INTO event_dedup (id_hash, day)
+            SELECT CAST(md5(event_id) AS UUID), CAST(to_timestamp(timestamp / 1000.0) AS DATE)
+            FROM moved
+            WHERE CAST(to_timestamp(timestamp / 1000.0) AS DATE) > ?
+            ON CONFLICT DO NOTHING
+        )
+        INSERT INTO events_archive (event_id, account_id, type, amount, timestamp, created_at)
+        SELECT event_id, account_id, type, amount, timestamp, created_at FROM moved
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Store an event and queue it in the outbox in one statement and one round trip
+     *
+     * @return false if the eventId was already stored
+     */
+    public boolean insertWithOutbox(Event event, String traceId) {
+        return jdbcTemplate.update(INSERT_WITH_OUTBOX_SQL,
+                event.getEventId(),
+                event.getEventId(), event.getAccountId(), event.getType(), event.getAmount(), event.getTimestamp(),
+                event.getAmount(), traceId) == 1;
+    }
+
+    /**
+     * The given eventIds accepted within the dedup window, found with one query
+     */
+    public Set<String> findExisting(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Set.of();
+        }
+        String[] idArray = eventIds.toArray(new String[0]);
+        return new HashSet<>(jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    """
+                    SELECT e.event_id
+                    FROM unnest(CAST(? AS varchar[])) AS e(event_id)
+                    WHERE EXISTS (
+                        SELECT 1 FROM event_dedup d
+                        WHERE d.id_hash = CAST(md5(e.event_id) AS UUID)
+                    )
+                    """);
+            ps.setArray(1, con.createArrayOf("varchar", idArray));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+
+    /**
+     * Insert events as one JDBC batch
+     *
+     * @return rows inserted per event, 0 where the eventId already existed
+     */
+    public int[] insertAll(List<Event> events) {
+        return jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getEventId());
+            ps.setString(2, event.getEventId());
+            ps.setString(3, event.getAccountId());
+            ps.setString(4, event.getType());
+            ps.setBigDecimal(5, event.getAmount());
+            ps.setLong(6, event.getTimestamp());
+        })[0];
+    }
+
+    /**
+     * Move up to limit events older than cutoffMillis to events_archive
+     *
+     * @param dedupCutoff last day that is already outside the dedup window
+     * @return events moved
+     */
+    public int archive(long cutoffMillis, LocalDate dedupCutoff, int limit) {
+        return jdbcTemplate.update(ARCHIVE_SQL, cutoffMillis, limit, dedupCutoff);
+    }
+}
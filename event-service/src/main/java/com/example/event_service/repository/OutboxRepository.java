@@ -0,0 +1,115 @@
+package com.example.event_service.repository;
+
+import com.example.event_service.model.Event;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Plain JDBC access to the outbox table. Rows carry the whole event, so the relay does not
+ * read the events table.
+ */
+@Repository
+public class OutboxRepository {
+
+    // Arbitrary key for pg_try_advisory_xact_lock; held by the instance currently relaying
+    private static final long RELAY_LOCK_KEY = 0x6F7574626F78L;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO outbox (event_id, account_id, type, amount, timestamp, trace_id)
+        VALUES (?, ?, ?, ?, ?, ?)
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Queue events as one JDBC batch, in list order; call inside the transaction that stores them
+     */
+    public void appendAll(List<NewEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.event().getEventId());
+            ps.setString(2, entry.event().getAccountId());
+            ps.setString(3, entry.event().getType());
+            ps.setBigDecimal(4, entry.event().getAmount());
+            ps.setLong(5, entry.event().getTimestamp());
+            ps.setString(6, entry.traceId());
+        });
+    }
+
+    /**
+     * Take the relay lock for the current transaction; false if another instance holds it
+     */
+    public boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY));
+    }
+
+    /**
+     * Oldest unpublished entries, in the order they were written
+     */
+    public List<OutboxEntry> findUnpublished(int limit) {
+        return jdbcTemplate.query("""
+            SELECT id, event_id, account_id, type, amount, timestamp, trace_id
+            FROM outbox
+            WHERE published_at IS NULL
+            ORDER BY id
+            LIMIT ?
+        """, (rs, rowNum) -> new OutboxEntry(
+                rs.getLong("id"),
+                new Event(
+                        rs.getString("event_id"),
+                        rs.getString("account_id"),
+                        rs.getString("type"),
+                        rs.getBigDecimal("amount"),
+                        rs.getLong("timestamp")),
+                rs.getString("trace_id")), limit);
+    }
+
+    /**
+     * Mark a batch of entries published in one statement
+     */
+    public void markPublished(List<Long> ids) {
+        Long[] idArray = ids.toArray(new Long[0]);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "UPDATE outbox SET published_at = now() WHERE id = ANY(CAST(? AS bigint[]))");
+            ps.setArray(1, con.createArrayOf("int8", idArray));
+            return ps;
+        });
+    }
+
+    /**
+     * Unpublished entries and the age of the oldest one in milliseconds (0 when there are none)
+     */
+    public Lag findLag() {
+        return jdbcTemplate.queryForObject("""
+            SELECT COUNT(*),
+                   COALESCE(CAST(EXTRACT(EPOCH FROM now() - MIN(created_at)) * 1000 AS BIGINT), 0)
+            FROM outbox
+            WHERE published_at IS NULL
+        """, (rs, rowNum) -> new Lag(rs.getLong(1), rs.getLong(2)));
+    }
+
+    /**
+     * Delete entries published more than retention ago
+     */
+    public int purge(Duration retention) {
+        return jdbcTemplate.update("""
+            DELETE FROM outbox
+            WHERE published_at < now() - ? * INTERVAL '1 second'
+        """, retention.toSeconds());
+    }
+
+    public record NewEntry(Event event, String traceId) {}
+
+    public record OutboxEntry(long id, Event event, String traceId) {}
+
+    public record Lag(long pending, long oldestAgeMs) {}
+}
@@ -0,0 +1,187 @@
+package com.example.event_service.service;
+
+import com.example.event_service.model.Event;
+import com.example.event_service.repository.OutboxRepository.NewEntry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for single-event submissions.
+ *
+ * Concurrent POST /events requests are queued to one writer thread, which stores whatever
+ * arrived within max-wait-ms of the first request, up to max-batch events, in one
+ * transaction through EventIngestService.acceptAll. Their outbox entries are written in the
+ * same transaction, so the relay publishes them together. Each request is completed with its
+ * own result. A request that is not completed within max-wait-ms plus commit-timeout-ms
+ * fails with a TimeoutException; its event may still be stored, so a retry can see it as a
+ * duplicate.
+ *
+ * On shutdown the writer commits what is queued; a request that arrives too late for that is
+ * rejected rather than left waiting.
+ *
+ * A max-wait-ms of 0 turns grouping off and each request commits on its own thread.
+ */
+@Service
+public class EventGroupCommitter {
+
+    private static final Logger log = LoggerFactory.getLogger(EventGroupCommitter.class);
+
+    private final EventIngestService ingestService;
+    private final long maxWaitNanos;
+    private final long timeoutMs;
+    private final int maxBatch;
+    private final BlockingQueue<Submission> queue;
+    private final DistributionSummary groupSize;
+
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public EventGroupCommitter(EventIngestService ingestService,
+                               MeterRegistry meterRegistry,
+                               @Value("${events.group-commit.max-wait-ms:5}") long maxWaitMs,
+                               @Value("${events.group-commit.commit-timeout-ms:10000}") long commitTimeoutMs,
+                               @Value("${events.group-commit.max-batch:200}") int maxBatch,
+                               @Value("${events.group-commit.max-queued:10000}") int maxQueued) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("events.group-commit.max-batch must be greater than 0");
+        }
+        this.ingestService = ingestService;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.timeoutMs = maxWaitMs + commitTimeoutMs;
+        this.maxBatch = maxBatch;
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        this.groupSize = DistributionSummary.builder("events.group-commit.size")
+                .description("Events stored per group commit")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (maxWaitNanos > 0) {
+            writer = Thread.ofPlatform().name("event-group-commit").daemon().start(this::run);
+        }
+    }
+
+    /**
+     * Commits what is still queued, then stops the writer
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join();
+        }
+    }
+
+    /**
+     * Queue an event for the next group commit
+     *
+     * @return completes with false if the eventId was already accepted, or exceptionally with
+     *         a TimeoutException if the commit does not finish in time
+     * @throws RejectedExecutionException if the queue is full or the committer is stopping
+     */
+    public CompletableFuture<Boolean> submit(Event event, String traceId) {
+        if (writer == null) {
+            return CompletableFuture.completedFuture(ingestService.accept(event, traceId));
+        }
+        Submission submission = new Submission(new NewEntry(event, traceId), new CompletableFuture<>());
+        if (!running) {
+            throw new RejectedExecutionException("event service is shutting down");
+        }
+        if (!queue.offer(submission)) {
+            throw new RejectedExecutionException("event ingest queue is full");
+        }
+        // Stopped while offering: take it back unless the writer already has it
+        if (!running && queue.remove(submission)) {
+            throw new RejectedExecutionException("event service is shutting down");
+        }
+        return submission.result().orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        List<Submission> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (group.size() < maxBatch) {
+                    Submission next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+
+        // Left behind when interrupted, or offered as the writer stopped; nothing will commit these now
+        queue.drainTo(group);
+        for (Submission submission : group) {
+            submission.result().completeExceptionally(new RejectedExecutionException("event service is shutting down"));
+        }
+    }
+
+    /**
+     * Store one group and complete each submission with its own result
+     */
+    void commit(List<Submission> group) {
+        List<NewEntry> entries = new ArrayList<>(group.size());
+        for (Submission submission : group) {
+            entries.add(submission.entry());
+        }
+        groupSize.record(group.size());
+
+        try {
+            Set<String> stored = ingestService.acceptAll(entries);
+            // Two requests for the same eventId in one group: the first is accepted, the other is a duplicate
+            Set<String> completed = new HashSet<>();
+            for (Submission submission : group) {
+                String eventId = submission.entry().event().getEventId();
+                submission.result().complete(stored.contains(eventId) && completed.add(eventId));
+            }
+        } catch (RuntimeException e) {
+            // One bad row must not fail the whole group; retry each event on its own
+            log.warn("Group commit of {} events failed, committing them one by one", group.size(), e);
+            for (Submission submission : group) {
+                try {
+                    NewEntry entry = submission.entry();
+                    submission.result().complete(ingestService.accept(entry.event(), entry.traceId()));
+                } catch (RuntimeException ex) {
+                    submission.result().completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    record Submission(NewEntry entry, CompletableFuture<Boolean> result) {}
+}
@@ -0,0 +1,109 @@
+package com.example.event_service.service;
+
+import com.example.event_service.model.Event;
+import com.example.event_service.repository.EventJdbcRepository;
+import com.example.event_service.repository.OutboxRepository;
+import com.example.event_service.repository.OutboxRepository.NewEntry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores accepted events. Each event and its outbox entry are written in one transaction,
+ * and OutboxRelay publishes it to Kafka afterwards, so an accepted event is never lost if
+ * Kafka is slow or down.
+ */
+@Service
+public class EventIngestService {
+
+    private final EventJdbcRepository jdbcRepository;
+    private final OutboxRepository outboxRepository;
+
+    public EventIngestService(EventJdbcRepository jdbcRepository, OutboxRepository outboxRepository) {
+        this.jdbcRepository = jdbcRepository;
+        this.outboxRepository = outboxRepository;
+    }
+
+    /**
+     * Store an event and queue it for publishing. The duplicate check, the insert and the
+     * outbox entry are one statement, so no transaction is opened around it and concurrent
+     * duplicates resolve in the insert instead of failing on the primary key.
+     *
+     * @return false if the eventId was already accepted
+     */
+    public boolean accept(Event event, String traceId) {
+        if (event.getTimestamp() == null) {
+            event.setTimestamp(System.currentTimeMillis());
+        }
+        return jdbcRepository.insertWithOutbox(event, traceId);
+    }
+
+    /**
+     * Store a batch of validated events that share one trace id
+     *
+     * @return eventIds that were stored; the others were duplicates
+     */
+    @Transactional
+    public Set<String> acceptBatch(List<Event> events, String traceId) {
+        List<NewEntry> entries = new ArrayList<>(events.size());
+        for (Event event : events) {
+            entries.add(new NewEntry(event, traceId));
+        }
+        return acceptAll(entries);
+    }
+
+    /**
+     * Store validated events and queue the new ones for publishing, with one duplicate
+     * lookup, one batched insert and one batched outbox write. The first occurrence of an
+     * eventId wins.
+     *
+     * @return eventIds that were stored; the others were duplicates
+     */
+    @Transactional
+    public Set<String> acceptAll(List<NewEntry> entries) {
+        Map<String, NewEntry> unique = new LinkedHashMap<>();
+        for (NewEntry entry : entries) {
+            unique.putIfAbsent(entry.event().getEventId(), entry);
+        }
+
+        Set<String> existing = jdbcRepository.findExisting(unique.keySet());
+        List<NewEntry> candidates = new ArrayList<>(unique.size());
+        long now = System.currentTimeMillis();
+        for (NewEntry entry : unique.values()) {
+            Event event = entry.event();
+            if (!existing.contains(event.getEventId())) {
+                if (event.getTimestamp() == null) {
+                    event.setTimestamp(now);
+                }
+                candidates.add(entry);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+
+        // A zero count means a concurrent request stored the eventId after the lookup
+        int[] counts = jdbcRepository.insertAll(candidates.stream().map(NewEntry::event).toList());
+        List<NewEntry> inserted = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            if (counts[i] != 0) {
+                inserted.add(candidates.get(i));
+            }
+        }
+        if (!inserted.isEmpty()) {
+            outboxRepository.appendAll(inserted);
+        }
+
+        Set<String> ids = new HashSet<>();
+        for (NewEntry entry : inserted) {
+            ids.add(entry.event().getEventId());
+        }
+        return ids;
+    }
+}
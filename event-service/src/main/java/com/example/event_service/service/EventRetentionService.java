@@ -0,0 +1,107 @@
+package com.example.event_service.service;
+
+import com.example.event_service.repository.EventDedupRepository;
+import com.example.event_service.repository.EventJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Keeps the ingest tables bounded so insert latency does not grow with history.
+ *
+ * Each round creates event_dedup partitions for today and the next partitions-ahead days,
+ * drops the partitions that have left the dedup window, and moves events older than the
+ * retention period to events_archive in batches. An eventId is rejected as a duplicate for
+ * window-days after it was accepted.
+ *
+ * Every step is safe to run on several instances at once: partitions are created and dropped
+ * with IF [NOT] EXISTS, and an event is archived only by the instance that deleted it.
+ */
+@Service
+public class EventRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventRetentionService.class);
+
+    private final EventDedupRepository dedupRepository;
+    private final EventJdbcRepository jdbcRepository;
+    private final Duration retention;
+    private final int windowDays;
+    private final int partitionsAhead;
+    private final int archiveBatchSize;
+
+    public EventRetentionService(EventDedupRepository dedupRepository,
+                                 EventJdbcRepository jdbcRepository,
+                                 @Value("${events.retention.days:7}") int retentionDays,
+                                 @Value("${events.dedup.window-days:30}") int windowDays,
+                                 @Value("${events.dedup.partitions-ahead:2}") int partitionsAhead,
+                                 @Value("${events.retention.archive-batch-size:5000}") int archiveBatchSize) {
+        if (windowDays < retentionDays) {
+            throw new IllegalArgumentException("events.dedup.window-days must not be shorter than events.retention.days");
+        }
+        if (archiveBatchSize <= 0) {
+            throw new IllegalArgumentException("events.retention.archive-batch-size must be greater than 0");
+        }
+        this.dedupRepository = dedupRepository;
+        this.jdbcRepository = jdbcRepository;
+        this.retention = Duration.ofDays(retentionDays);
+        this.windowDays = windowDays;
+        this.partitionsAhead = partitionsAhead;
+        this.archiveBatchSize = archiveBatchSize;
+    }
+
+    /**
+     * Runs once at startup, then every interval-ms
+     */
+    @Scheduled(fixedDelayString = "${events.retention.interval-ms:3600000}")
+    public void maintain() {
+        LocalDate today = dedupRepository.currentDate();
+        LocalDate expired = today.minusDays(windowDays);
+        ensurePartitions(today);
+        dropExpired(expired);
+        archive(expired);
+    }
+
+    void ensurePartitions(LocalDate today) {
+        for (int i = 0; i <= partitionsAhead; i++) {
+            LocalDate day = today.plusDays(i);
+            try {
+                dedupRepository.createPartition(day);
+            } catch (RuntimeException e) {
+                // Usually another instance creating it at the same moment, or rows for that day
+                // already sitting in the default partition; inserts keep working either way
+                log.warn("Could not create event_dedup partition for {}", day, e);
+            }
+        }
+    }
+
+    void dropExpired(LocalDate expired) {
+        for (LocalDate day : dedupRepository.findPartitionDays()) {
+            if (!day.isAfter(expired)) {
+                dedupRepository.dropPartition(day);
+                log.info("Dropped event_dedup partition for {}", day);
+            }
+        }
+        int purged = dedupRepository.purgeDefault(expired);
+        if (purged > 0) {
+            log.warn("Purged {} expired rows from event_dedup_default; partitions were missing for those days", purged);
+        }
+    }
+
+    void archive(LocalDate expired) {
+        long cutoffMillis = System.currentTimeMillis() - retention.toMillis();
+        long total = 0;
+        int moved;
+        do {
+            moved = jdbcRepository.archive(cutoffMillis, expired, archiveBatchSize);
+            total += moved;
+        } while (moved == archiveBatchSize);
+        if (total > 0) {
+            log.info("Archived {} events older than {}", total, retention);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.event_service.service;
+
+import com.example.event_service.repository.OutboxRepository;
+import com.example.event_service.repository.OutboxRepository.Lag;
+import com.example.event_service.repository.OutboxRepository.OutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox entries to transactions.raw.
+ *
+ * Each round takes a transaction-scoped advisory lock, so one instance relays at a time and
+ * events leave in outbox order (per account key, in the order they were accepted). Within a
+ * batch, account keys are sent concurrently while each key's entries are sent one after the
+ * other, the next only once the previous one was acknowledged. Acknowledged entries are
+ * marked published with one statement. At the first failure of a key its remaining entries
+ * are not sent at all; they stay unpublished with the failed entry and are retried on the
+ * next round in order. A crash between send and mark republishes entries, which the shadow
+ * ledger's eventId deduplication absorbs.
+ *
+ * The transaction, its connection and the relay lock are held while acknowledgements are
+ * awaited, for at most send-timeout-ms. Keep it short: a send still unacknowledged by then is
+ * treated as a failure of its key, and may reach Kafka twice if it is delivered late.
+ *
+ * Relay lag (age of the oldest unpublished entry) and the backlog are exposed as
+ * outbox.relay.lag and outbox.pending.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String transactionsRawTopic;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final Duration retention;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+    private final Counter published;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${kafka.topics.transactions-raw:transactions.raw}") String transactionsRawTopic,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${outbox.relay.send-timeout-ms:5000}") long sendTimeoutMs,
+                       @Value("${outbox.retention-hours:24}") long retentionHours) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("outbox.relay.batch-size must be greater than 0");
+        }
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionsRawTopic = transactionsRawTopic;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.retention = Duration.ofHours(retentionHours);
+
+        Gauge.builder("outbox.relay.lag", lagMs, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox entry")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("Outbox entries not yet published")
+                .register(meterRegistry);
+        this.published = Counter.builder("outbox.relay.published")
+                .description("Outbox entries published to Kafka")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Relay full batches until the outbox is drained or a send fails
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:100}")
+    public void drain() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed == batchSize);
+        updateLag();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        int purged = outboxRepository.purge(retention);
+        if (purged > 0) {
+            log.info("Purged {} published outbox entries older than {}", purged, retention);
+        }
+    }
+
+    /**
+     * Publish one batch; runs in the caller's transaction
+     *
+     * @return entries published and marked
+     */
+    int relayBatch() {
+        if (!outboxRepository.tryLockRelay()) {
+            return 0;
+        }
+        List<OutboxEntry> batch = outboxRepository.findUnpublished(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Different account keys are sent side by side; an entry is handed to the producer only
+        // once the previous entry of its key was acknowledged, so nothing of a key that failed
+        // or timed out reaches Kafka ahead of the entry that is retried next round
+        Set<String> stoppedKeys = ConcurrentHashMap.newKeySet();
+        AtomicBoolean finished = new AtomicBoolean();
+        Map<String, CompletableFuture<Void>> lastSendByKey = new HashMap<>();
+        List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+        for (OutboxEntry entry : batch) {
+            String key = entry.event().getAccountId();
+            CompletableFuture<Void> previous = lastSendByKey.get(key);
+            // Async, so the next send never runs on the producer's callback thread
+            CompletableFuture<Void> sent = previous == null ? send(entry) : previous.thenComposeAsync(acked ->
+                    finished.get() || stoppedKeys.contains(key)
+                            ? CompletableFuture.<Void>failedFuture(new CancellationException("relay stopped for key " + key))
+                            : send(entry));
+            lastSendByKey.put(key, sent);
+            sends.add(sent);
+        }
+
+        // Acknowledged entries only, per key up to its first failure. A send that is not
+        // acknowledged in time may still be delivered, so its key is stopped as well
+        List<Long> ids = new ArrayList<>(batch.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                OutboxEntry entry = batch.get(i);
+                String key = entry.event().getAccountId();
+                if (stoppedKeys.contains(key)) {
+                    continue;
+                }
+                try {
+                    sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    ids.add(entry.id());
+                } catch (ExecutionException e) {
+                    stoppedKeys.add(key);
+                    log.error("Failed to publish event to Kafka: eventId={}, will retry", entry.event().getEventId(), e);
+                } catch (TimeoutException e) {
+                    stoppedKeys.add(key);
+                    log.warn("Event not acknowledged within {} ms, delivery unknown: eventId={}, will retry",
+                            sendTimeoutMs, entry.event().getEventId());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finished.set(true);
+        }
+
+        if (!ids.isEmpty()) {
+            outboxRepository.markPublished(ids);
+            published.increment(ids.size());
+        }
+        log.debug("Relayed {} of {} outbox entries to {}", ids.size(), batch.size(), transactionsRawTopic);
+        return ids.size();
+    }
+
+    private CompletableFuture<Void> send(OutboxEntry entry) {
+        // Carries the trace id so downstream failures can be traced back
+        ProducerRecord<String, Object> record = new ProducerRecord<>(
+                transactionsRawTopic, entry.event().getAccountId(), entry.event());
+        if (entry.traceId() != null) {
+            record.headers().add("X-Trace-Id", entry.traceId().getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return kafkaTemplate.send(record).thenApply(result -> null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void updateLag() {
+        try {
+            Lag lag = outboxRepository.findLag();
+            pending.set(lag.pending());
+            lagMs.set(lag.oldestAgeMs());
+        } catch (RuntimeException e) {
+            log.warn("Could not read outbox lag", e);
+        }
+    }
+}
@@ -12,3 +12,47 @@ CREATE TABLE IF NOT EXISTS events (
 CREATE INDEX IF NOT EXISTS idx_events_account_id ON events(account_id);
 CREATE INDEX IF NOT EXISTS idx_events_timestamp ON events(timestamp);
 
+
+-- Duplicate detection: a 128-bit md5 of each accepted eventId, partitioned by the day it was
+-- accepted. EventRetentionService creates partitions ahead of time and drops whole partitions
+-- once they fall out of events.dedup.window-days; the default partition only fills if that
+-- job has not run
+CREATE TABLE IF NOT EXISTS event_dedup (
+    id_hash UUID NOT NULL,
+    day DATE NOT NULL,
+    PRIMARY KEY (id_hash, day)
+) PARTITION BY RANGE (day);
+
+CREATE TABLE IF NOT EXISTS event_dedup_default PARTITION OF event_dedup DEFAULT;
+
+-- Events older than events.retention-days are moved here, keeping the events primary key small.
+-- No primary key; a BRIN index is enough for time-range reads of append-only rows
+CREATE TABLE IF NOT EXISTS events_archive (
+    event_id VARCHAR(255) NOT NULL,
+    account_id VARCHAR(255) NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    amount BIGINT NOT NULL,
+    timestamp BIGINT NOT NULL,
+    created_at TIMESTAMP,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_events_archive_timestamp ON events_archive USING BRIN (timestamp);
+
+-- Transactional outbox: written in the same transaction as events and published to
+-- transactions.raw by OutboxRelay, which marks entries published once Kafka acknowledges them
+CREATE TABLE IF NOT EXISTS outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(255) NOT NULL,
+    account_id VARCHAR(255) NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    amount NUMERIC NOT NULL,
+    timestamp BIGINT NOT NULL,
+    trace_id VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP
+);
+
+-- Relay scans and lag; published entries drop out of the index
+CREATE INDEX IF NOT EXISTS idx_outbox_unpublished ON outbox(id) WHERE published_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_published_at ON outbox(published_at) WHERE published_at IS NOT NULL;
@@ -20,7 +20,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Test 1: Event Validation Test
  * Tests that invalid events are correctly rejected
  */
-@SpringBootTest
+// Group commit off so single submissions run in the test transaction and are rolled back
+@SpringBootTest(properties = "events.group-commit.max-wait-ms=0")
 @AutoConfigureMockMvc
 @Transactional
 public class EventValidationTest {
@@ -133,5 +134,57 @@ public class EventValidationTest {
                 .andExpect(jsonPath("$.status").value("queued"))
                 .andExpect(jsonPath("$.eventId").value("E-TEST-VALID-001"));
     }
-}
 
+    @Test
+    public void testEventBatch_ReportsStatusPerItem() throws Exception {
+        String body = """
+            [
+              {"eventId": "E-TEST-BATCH-001", "accountId": "A10", "type": "credit", "amount": 100.00},
+              {"eventId": "E-TEST-BATCH-002", "accountId": "A10", "type": "debit", "amount": 0},
+              {"eventId": "E-TEST-BATCH-001", "accountId": "A10", "type": "credit", "amount": 100.00}
+            ]
+            """;
+
+        mockMvc.perform(post("/events/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.queued").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.invalid").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("queued"))
+                .andExpect(jsonPath("$.results[1].status").value("invalid"))
+                .andExpect(jsonPath("$.results[2].status").value("duplicate"));
+    }
+
+    @Test
+    public void testEventBatch_NdjsonWithMalformedLine() throws Exception {
+        String body = """
+            {"eventId": "E-TEST-NDJSON-001", "accountId": "A10", "type": "credit", "amount": 50}
+            {"eventId": "E-TEST-NDJSON-002", "accountId":
+            """;
+
+        mockMvc.perform(post("/events/batch")
+                .contentType("application/x-ndjson")
+                .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.results[0].status").value("queued"))
+                .andExpect(jsonPath("$.results[1].status").value("invalid"));
+    }
+
+    @Test
+    public void testEventBatch_OversizedBatchRejectedBeforeTheRestIsRead() throws Exception {
+        // 1001 items, then a tail that would fail to parse if it were ever read
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i <= 1000; i++) {
+            body.append("{\"eventId\": \"E-TEST-BIG-").append(i)
+                .append("\", \"accountId\": \"A10\", \"type\": \"credit\", \"amount\": 1},");
+        }
+        body.append("not json");
+
+        mockMvc.perform(post("/events/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString()))
+                .andExpect(status().isPayloadTooLarge());
+    }
+}
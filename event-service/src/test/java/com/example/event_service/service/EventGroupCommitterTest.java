@@ -0,0 +1,133 @@
+package com.example.event_service.service;
+
+import com.example.event_service.model.Event;
+import com.example.event_service.repository.OutboxRepository.NewEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Event Group Committer Test
+ * Tests that concurrent submissions share one commit and each gets its own result
+ */
+public class EventGroupCommitterTest {
+
+    @Mock
+    private EventIngestService ingestService;
+
+    private EventGroupCommitter committer;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        committer = new EventGroupCommitter(ingestService, new SimpleMeterRegistry(), 10_000, 10_000, 3, 100);
+        committer.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        committer.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFullGroupIsCommittedOnceWithPerRequestResults() {
+        when(ingestService.acceptAll(anyList())).thenReturn(Set.of("E1", "E3"));
+
+        // A full group commits without waiting out the 10s window
+        CompletableFuture<Boolean> first = committer.submit(event("E1"), "trace-1");
+        CompletableFuture<Boolean> second = committer.submit(event("E2"), "trace-2");
+        CompletableFuture<Boolean> third = committer.submit(event("E3"), null);
+
+        assertThat(first.join()).isTrue();
+        assertThat(second.join()).isFalse();
+        assertThat(third.join()).isTrue();
+        ArgumentCaptor<List<NewEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ingestService, times(1)).acceptAll(captor.capture());
+        assertThat(captor.getValue()).extracting(NewEntry::traceId).containsExactly("trace-1", "trace-2", null);
+    }
+
+    @Test
+    public void testSameEventIdTwiceInOneGroupIsOneDuplicate() {
+        when(ingestService.acceptAll(anyList())).thenReturn(Set.of("E1"));
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        CompletableFuture<Boolean> repeat = new CompletableFuture<>();
+
+        committer.commit(List.of(
+                new EventGroupCommitter.Submission(new NewEntry(event("E1"), null), first),
+                new EventGroupCommitter.Submission(new NewEntry(event("E1"), null), repeat)));
+
+        assertThat(first.join()).isTrue();
+        assertThat(repeat.join()).isFalse();
+    }
+
+    @Test
+    public void testFailedGroupFallsBackToSingleCommits() {
+        when(ingestService.acceptAll(anyList())).thenThrow(new DataIntegrityViolationException("bad row"));
+        when(ingestService.accept(any(), eq("ok"))).thenReturn(true);
+        when(ingestService.accept(any(), eq("bad"))).thenThrow(new DataIntegrityViolationException("bad row"));
+        CompletableFuture<Boolean> good = new CompletableFuture<>();
+        CompletableFuture<Boolean> bad = new CompletableFuture<>();
+
+        committer.commit(List.of(
+                new EventGroupCommitter.Submission(new NewEntry(event("E1"), "ok"), good),
+                new EventGroupCommitter.Submission(new NewEntry(event("E2"), "bad"), bad)));
+
+        assertThat(good.join()).isTrue();
+        assertThat(bad).isCompletedExceptionally();
+    }
+
+    @Test
+    public void testCommitNotFinishedInTimeFailsTheRequest() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(ingestService.acceptAll(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return Set.of("E1");
+        });
+        EventGroupCommitter quick = new EventGroupCommitter(ingestService, new SimpleMeterRegistry(), 1, 50, 3, 100);
+        quick.start();
+
+        CompletableFuture<Boolean> result = quick.submit(event("E1"), null);
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(TimeoutException.class);
+        release.countDown();
+        quick.stop();
+    }
+
+    @Test
+    public void testSubmitAfterStopIsRejected() throws InterruptedException {
+        committer.stop();
+
+        assertThatThrownBy(() -> committer.submit(event("E1"), null)).isInstanceOf(RejectedExecutionException.class);
+        verifyNoInteractions(ingestService);
+    }
+
+    private static Event event(String eventId) {
+        Event event = new Event();
+        event.setEventId(eventId);
+        event.setAccountId("A10");
+        event.setType("credit");
+        event.setAmount(new BigDecimal("100.00"));
+        return event;
+    }
+}
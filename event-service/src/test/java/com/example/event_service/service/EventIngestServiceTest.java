@@ -0,0 +1,109 @@
+package com.example.event_service.service;
+
+import com.example.event_service.model.Event;
+import com.example.event_service.repository.EventJdbcRepository;
+import com.example.event_service.repository.OutboxRepository;
+import com.example.event_service.repository.OutboxRepository.NewEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Event Ingest Service Test
+ * Tests that duplicates are resolved by the insert and only newly stored events reach the outbox
+ */
+public class EventIngestServiceTest {
+
+    @Mock
+    private EventJdbcRepository jdbcRepository;
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    private EventIngestService ingestService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ingestService = new EventIngestService(jdbcRepository, outboxRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchSkipsStoredAndRepeatedEventIds() {
+        when(jdbcRepository.findExisting(any())).thenReturn(Set.of("E2"));
+        when(jdbcRepository.insertAll(anyList())).thenReturn(new int[] {1, 1});
+
+        Set<String> stored = ingestService.acceptBatch(
+                List.of(event("E1", "A10"), event("E2", "A20"), event("E1", "A30"), event("E3", "A10")), "trace-1");
+
+        assertThat(stored).containsExactlyInAnyOrder("E1", "E3");
+        verify(jdbcRepository, times(1)).findExisting(Set.of("E1", "E2", "E3"));
+        ArgumentCaptor<List<Event>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcRepository).insertAll(inserted.capture());
+        // First occurrence of E1 wins
+        assertThat(inserted.getValue()).extracting(Event::getAccountId).containsExactly("A10", "A10");
+        assertThat(inserted.getValue()).allSatisfy(e -> assertThat(e.getTimestamp()).isNotNull());
+        ArgumentCaptor<List<NewEntry>> queued = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).appendAll(queued.capture());
+        assertThat(queued.getValue()).extracting(NewEntry::traceId).containsExactly("trace-1", "trace-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEventStoredConcurrentlyIsNotQueuedTwice() {
+        when(jdbcRepository.findExisting(any())).thenReturn(Set.of());
+        // E2 was inserted by another request between the lookup and the insert
+        when(jdbcRepository.insertAll(anyList())).thenReturn(new int[] {1, 0});
+
+        Set<String> stored = ingestService.acceptBatch(List.of(event("E1", "A10"), event("E2", "A20")), null);
+
+        assertThat(stored).containsExactly("E1");
+        ArgumentCaptor<List<NewEntry>> queued = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).appendAll(queued.capture());
+        assertThat(queued.getValue()).extracting(e -> e.event().getEventId()).containsExactly("E1");
+    }
+
+    @Test
+    public void testBatchOfKnownEventsWritesNothing() {
+        when(jdbcRepository.findExisting(any())).thenReturn(Set.of("E1"));
+
+        assertThat(ingestService.acceptBatch(List.of(event("E1", "A10")), null)).isEmpty();
+
+        verify(jdbcRepository, never()).insertAll(anyList());
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    public void testSingleEventIsOneInsertWithoutLookup() {
+        Event event = event("E1", "A10");
+        when(jdbcRepository.insertWithOutbox(event, "trace-1")).thenReturn(true).thenReturn(false);
+
+        assertThat(ingestService.accept(event, "trace-1")).isTrue();
+        assertThat(ingestService.accept(event, "trace-1")).isFalse();
+
+        assertThat(event.getTimestamp()).isNotNull();
+        verify(jdbcRepository, never()).findExisting(any());
+        verifyNoInteractions(outboxRepository);
+    }
+
+    private static Event event(String eventId, String accountId) {
+        Event event = new Event();
+        event.setEventId(eventId);
+        event.setAccountId(accountId);
+        event.setType("credit");
+        event.setAmount(new BigDecimal("100.00"));
+        return event;
+    }
+}
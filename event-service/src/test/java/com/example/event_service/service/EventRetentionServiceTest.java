@@ -0,0 +1,85 @@
+package com.example.event_service.service;
+
+import com.example.event_service.repository.EventDedupRepository;
+import com.example.event_service.repository.EventJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Event Retention Service Test
+ * Tests that dedup partitions roll forward, expired days are dropped and old events are archived
+ */
+public class EventRetentionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 16);
+
+    @Mock
+    private EventDedupRepository dedupRepository;
+
+    @Mock
+    private EventJdbcRepository jdbcRepository;
+
+    private EventRetentionService retentionService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        retentionService = new EventRetentionService(dedupRepository, jdbcRepository, 7, 30, 2, 100);
+        when(dedupRepository.currentDate()).thenReturn(TODAY);
+    }
+
+    @Test
+    public void testPartitionsAreCreatedAheadAndExpiredOnesDropped() {
+        when(dedupRepository.findPartitionDays()).thenReturn(List.of(
+                LocalDate.of(2026, 9, 15), LocalDate.of(2026, 9, 16), LocalDate.of(2026, 9, 17), TODAY));
+
+        retentionService.maintain();
+
+        verify(dedupRepository).createPartition(TODAY);
+        verify(dedupRepository).createPartition(TODAY.plusDays(1));
+        verify(dedupRepository).createPartition(TODAY.plusDays(2));
+        // 30-day window: 2026-09-16 is the last expired day
+        verify(dedupRepository).dropPartition(LocalDate.of(2026, 9, 15));
+        verify(dedupRepository).dropPartition(LocalDate.of(2026, 9, 16));
+        verify(dedupRepository, never()).dropPartition(LocalDate.of(2026, 9, 17));
+        verify(dedupRepository, never()).dropPartition(TODAY);
+        verify(dedupRepository).purgeDefault(LocalDate.of(2026, 9, 16));
+    }
+
+    @Test
+    public void testArchiveRunsUntilAShortBatch() {
+        when(jdbcRepository.archive(anyLong(), any(), anyInt())).thenReturn(100, 100, 40);
+
+        retentionService.maintain();
+
+        verify(jdbcRepository, times(3)).archive(anyLong(), eq(LocalDate.of(2026, 9, 16)), eq(100));
+    }
+
+    @Test
+    public void testFailedPartitionCreationDoesNotStopTheRound() {
+        doThrow(new RuntimeException("relation already exists")).when(dedupRepository).createPartition(TODAY);
+
+        retentionService.maintain();
+
+        verify(dedupRepository).createPartition(TODAY.plusDays(2));
+        verify(jdbcRepository).archive(anyLong(), any(), anyInt());
+    }
+
+    @Test
+    public void testWindowShorterThanRetentionIsRejected() {
+        assertThatThrownBy(() -> new EventRetentionService(dedupRepository, jdbcRepository, 7, 3, 2, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
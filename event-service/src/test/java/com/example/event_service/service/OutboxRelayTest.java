@@ -0,0 +1,152 @@
+package com.example.event_service.service;
+
+import com.example.event_service.model.Event;
+import com.example.event_service.repository.OutboxRepository;
+import com.example.event_service.repository.OutboxRepository.Lag;
+import com.example.event_service.repository.OutboxRepository.OutboxEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Outbox Relay Test
+ * Tests that outbox entries are published in order and only acknowledged ones are marked published
+ */
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxRepository, kafkaTemplate, transactionManager, meterRegistry,
+                "transactions.raw", 3, 1000, 24);
+        when(outboxRepository.tryLockRelay()).thenReturn(true);
+        when(outboxRepository.findLag()).thenReturn(new Lag(0, 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchIsPublishedInOrderAndMarkedOnce() {
+        when(outboxRepository.findUnpublished(3))
+            .thenReturn(List.of(entry(1, "E1", "A10", "trace-1"), entry(2, "E2", "A20", null), entry(3, "E3", "A10", null)))
+            .thenReturn(List.of());
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.drain();
+
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(3)).send(captor.capture());
+        assertThat(captor.getAllValues()).extracting(ProducerRecord::key).containsExactly("A10", "A20", "A10");
+        assertThat(captor.getAllValues()).extracting(r -> ((Event) r.value()).getEventId()).containsExactly("E1", "E2", "E3");
+        assertThat(captor.getAllValues().get(0).headers().lastHeader("X-Trace-Id")).isNotNull();
+        verify(outboxRepository, times(1)).markPublished(List.of(1L, 2L, 3L));
+        assertThat(meterRegistry.counter("outbox.relay.published").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedSendStaysUnpublishedAndStopsDraining() {
+        when(outboxRepository.findUnpublished(3))
+            .thenReturn(List.of(entry(1, "E1", "A10", null), entry(2, "E2", "A20", null), entry(3, "E3", "A30", null)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.completedFuture(null))
+            .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker down")))
+            .thenReturn(CompletableFuture.completedFuture(null));
+        when(outboxRepository.findLag()).thenReturn(new Lag(1, 2500));
+
+        relay.drain();
+
+        verify(outboxRepository).markPublished(List.of(1L, 3L));
+        verify(outboxRepository, times(1)).findUnpublished(anyInt());
+        assertThat(meterRegistry.get("outbox.relay.lag").gauge().value()).isEqualTo(2500.0);
+        assertThat(meterRegistry.get("outbox.pending").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEntriesAfterAFailureOfTheSameKeyAreNotSent() {
+        when(outboxRepository.findUnpublished(3))
+            .thenReturn(List.of(entry(1, "E1", "A10", null), entry(2, "E2", "A20", null), entry(3, "E3", "A10", null)));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, Object> record = invocation.getArgument(0);
+            return "E1".equals(((Event) record.value()).getEventId())
+                    ? CompletableFuture.failedFuture(new KafkaException("broker down"))
+                    : CompletableFuture.completedFuture(null);
+        });
+
+        relay.drain();
+
+        // E3 must not reach Kafka ahead of E1, which is retried first
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(captor.capture());
+        assertThat(captor.getAllValues()).extracting(r -> ((Event) r.value()).getEventId()).containsExactly("E1", "E2");
+        verify(outboxRepository).markPublished(List.of(2L));
+        assertThat(meterRegistry.counter("outbox.relay.published").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnacknowledgedSendStopsItsKey() {
+        relay = new OutboxRelay(outboxRepository, kafkaTemplate, transactionManager, meterRegistry,
+                "transactions.raw", 3, 50, 24);
+        CompletableFuture<Object> pendingAck = new CompletableFuture<>();
+        when(outboxRepository.findUnpublished(3))
+            .thenReturn(List.of(entry(1, "E1", "A10", null), entry(2, "E2", "A20", null), entry(3, "E3", "A10", null)));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, Object> record = invocation.getArgument(0);
+            return "E1".equals(((Event) record.value()).getEventId())
+                    ? pendingAck
+                    : CompletableFuture.completedFuture(null);
+        });
+
+        relay.drain();
+        // E1 is delivered after the relay gave up on it; E3 still stays with it for the next round
+        pendingAck.complete(null);
+
+        verify(outboxRepository).markPublished(List.of(2L));
+        verify(kafkaTemplate, after(200).times(2)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    public void testOtherInstanceHoldingTheLockSkipsTheRound() {
+        when(outboxRepository.tryLockRelay()).thenReturn(false);
+
+        relay.drain();
+
+        verify(outboxRepository, never()).findUnpublished(anyInt());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static OutboxEntry entry(long id, String eventId, String accountId, String traceId) {
+        return new OutboxEntry(id, new Event(eventId, accountId, "credit", new BigDecimal("100.00"), 1735561800000L), traceId);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.shadow_ledger_service.config;
+
+import ch.qos.logback.classic.Level;
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of decoding a 500-record poll with the ObjectMapper-based deserializer
+ * versus the streaming LedgerEvent deserializer.
+ *
+ * Run with ./gradlew jmh and compare gc.alloc.rate.norm (bytes allocated per record).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LedgerEventDeserializerBenchmark {
+
+    private static final int POLL_SIZE = 500;
+    private static final String TOPIC = "transactions.raw";
+
+    private final CustomJsonDeserializer<LedgerEvent> objectMapperDeserializer =
+            new CustomJsonDeserializer<>(LedgerEvent.class);
+    private final LedgerEventDeserializer streamingDeserializer = new LedgerEventDeserializer();
+    private byte[][] payloads;
+
+    @Setup
+    public void setUp() {
+        // The consumer runs at INFO; keep the debug payload log out of the measurement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(CustomJsonDeserializer.class)).setLevel(Level.INFO);
+
+        payloads = new byte[POLL_SIZE][];
+        for (int i = 0; i < POLL_SIZE; i++) {
+            String type = i % 3 == 0 ? "debit" : "credit";
+            String json = "{\"eventId\":\"E-" + i + "\",\"accountId\":\"A" + (i % 50) + "\",\"type\":\"" + type
+                    + "\",\"amount\":" + (i % 997) + "." + (i % 100 < 10 ? "0" : "") + (i % 100)
+                    + ",\"timestamp\":" + (1_700_000_000_000L + i) + "}";
+            payloads[i] = json.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void objectMapperPoll(Blackhole blackhole) {
+        for (byte[] payload : payloads) {
+            blackhole.consume(objectMapperDeserializer.deserialize(TOPIC, payload));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void streamingPoll(Blackhole blackhole) {
+        for (byte[] payload : payloads) {
+            blackhole.consume(streamingDeserializer.deserialize(TOPIC, payload));
+        }
+    }
+}
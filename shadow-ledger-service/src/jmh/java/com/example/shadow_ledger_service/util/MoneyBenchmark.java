@@ -0,0 +1,91 @@
+package com.example.shadow_ledger_service.util;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of deserializing an event and validating it against a running balance,
+ * with BigDecimal amounts versus long minor units.
+ *
+ * Run with ./gradlew jmh and compare gc.alloc.rate.norm (bytes allocated per operation)
+ * between the two benchmarks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyBenchmark {
+
+    private static final int EVENTS = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[][] payloads;
+
+    @Setup
+    public void setUp() {
+        payloads = new byte[EVENTS][];
+        for (int i = 0; i < EVENTS; i++) {
+            String type = i % 3 == 0 ? "debit" : "credit";
+            String json = "{\"eventId\":\"E-" + i + "\",\"accountId\":\"A" + (i % 50) + "\",\"type\":\"" + type
+                    + "\",\"amount\":" + (i % 997) + "." + (i % 100 < 10 ? "0" : "") + (i % 100)
+                    + ",\"timestamp\":" + (1_700_000_000_000L + i) + "}";
+            payloads[i] = json.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public BigDecimal bigDecimalAmounts() throws Exception {
+        BigDecimal balance = new BigDecimal("1000000.00");
+        for (byte[] payload : payloads) {
+            DecimalEvent event = objectMapper.readValue(payload, DecimalEvent.class);
+            BigDecimal next = "credit".equals(event.type)
+                    ? balance.add(event.amount)
+                    : balance.subtract(event.amount);
+            if (next.compareTo(BigDecimal.ZERO) >= 0) {
+                balance = next;
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long minorUnitAmounts() throws Exception {
+        long balance = 100_000_000L;
+        for (byte[] payload : payloads) {
+            LedgerEvent event = objectMapper.readValue(payload, LedgerEvent.class);
+            long next = "credit".equals(event.getType())
+                    ? Money.add(balance, event.getAmountMinor())
+                    : Money.subtract(balance, event.getAmountMinor());
+            if (next >= 0) {
+                balance = next;
+            }
+        }
+        return balance;
+    }
+
+    /**
+     * The event shape before minor units: amount bound straight to BigDecimal
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class DecimalEvent {
+        public String eventId;
+        public String accountId;
+        public String type;
+        public BigDecimal amount;
+        public Long timestamp;
+    }
+}
@@ -58,8 +58,10 @@ public class CustomJsonDeserializer<T> implements Deserializer<T> {
             return null;
         }
         try {
-            String jsonString = new String(data, StandardCharsets.UTF_8);
-            log.debug("Deserializing from topic {}: {}", topic, jsonString);
+            // Only stringify the payload when debug logging is actually on
+            if (log.isDebugEnabled()) {
+                log.debug("Deserializing from topic {}: {}", topic, new String(data, StandardCharsets.UTF_8));
+            }
             T result = objectMapper.readValue(data, targetType);
             log.debug("Successfully deserialized object of type: {}", targetType.getName());
             return result;
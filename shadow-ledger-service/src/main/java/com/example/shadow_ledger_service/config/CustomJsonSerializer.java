@@ -0,0 +1,34 @@
+package com.example.shadow_ledger_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Custom JSON serializer to replace the deprecated Spring Kafka JsonSerializer
+ * Counterpart of CustomJsonDeserializer, used when forwarding events to retry topics
+ */
+public class CustomJsonSerializer<T> implements Serializer<T> {
+
+    private final ObjectMapper objectMapper;
+
+    public CustomJsonSerializer() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        mapper.findAndRegisterModules();
+        this.objectMapper = mapper;
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsBytes(data);
+        } catch (Exception e) {
+            throw new SerializationException("Failed to serialize JSON for topic " + topic, e);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.shadow_ledger_service.config;
 
 import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.example.shadow_ledger_service.service.DedupFilterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -11,6 +13,7 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
@@ -23,14 +26,18 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Safe to raise: writes for one account are serialized by AccountSequencer
+    @Value("${ledger.consumer.concurrency:1}")
+    private int concurrency;
+
     @Bean
     public ConsumerFactory<String, LedgerEvent> consumerFactory() {
-        // Create custom JSON deserializer
-        CustomJsonDeserializer<LedgerEvent> jsonDeserializer = new CustomJsonDeserializer<>(LedgerEvent.class);
+        // Binary or streaming JSON decode, chosen per record by the content-type header
+        WireFormatDeserializer valueDeserializer = new WireFormatDeserializer();
 
         // Wrap with ErrorHandlingDeserializer for resilience
         ErrorHandlingDeserializer<LedgerEvent> errorHandlingDeserializer =
-            new ErrorHandlingDeserializer<>(jsonDeserializer);
+            new ErrorHandlingDeserializer<>(valueDeserializer);
 
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -41,6 +48,8 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.REQUEST_TIMEOUT_MS_CONFIG, 30000);
         props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300000);
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+        // Corrections from an aborted transactional drift run are never applied
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
 
         return new DefaultKafkaConsumerFactory<>(
             props,
@@ -54,7 +63,30 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, LedgerEvent> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setAutoStartup(true);
+        return factory;
+    }
+
+    /**
+     * Container factory for batch listeners (ledger.consumer.mode=batch|parallel)
+     * Hands the whole poll (up to max.poll.records) to the listener in one call,
+     * rebuilds the eventId dedup filters whenever partitions are assigned, and sends
+     * records that keep failing to the DLT (see KafkaRetryConfig)
+     */
+    @Bean
+    @ConditionalOnExpression("'${ledger.consumer.mode:record}' != 'record'")
+    public ConcurrentKafkaListenerContainerFactory<String, LedgerEvent> batchKafkaListenerContainerFactory(
+            DedupFilterRegistry dedupFilterRegistry, DefaultErrorHandler batchErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, LedgerEvent> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(dedupFilterRegistry);
+        factory.setCommonErrorHandler(batchErrorHandler);
         factory.setAutoStartup(true);
         return factory;
     }
@@ -0,0 +1,152 @@
+package com.example.shadow_ledger_service.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Retry and dead-letter handling for failed ledger events.
+ *
+ * Record mode uses non-blocking retry topics: a failing record is forwarded to
+ * {topic}.retry-0, -1, -2 with growing delays and finally to {topic}.DLT, so the source
+ * partition keeps moving. Batch and parallel modes retry the failing record a few times in
+ * place and then publish it to the same {topic}.DLT. Records that cannot be deserialized
+ * are never retried.
+ *
+ * Every forwarded record carries the failure reason and a trace id in its headers, on top
+ * of the standard kafka_dlt-* headers (original topic, partition, offset, exception).
+ */
+@Configuration
+public class KafkaRetryConfig extends RetryTopicConfigurationSupport {
+
+    public static final String DLT_SUFFIX = ".DLT";
+    public static final String FAILURE_REASON_HEADER = "x-failure-reason";
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    @Value("${kafka.topics.transactions-raw}")
+    private String transactionsRawTopic;
+
+    @Value("${kafka.topics.transactions-corrections}")
+    private String transactionsCorrectionsTopic;
+
+    @Value("${ledger.retry.attempts:4}")
+    private int attempts;
+
+    @Value("${ledger.retry.initial-delay-ms:1000}")
+    private long initialDelayMs;
+
+    @Value("${ledger.retry.multiplier:5.0}")
+    private double multiplier;
+
+    @Value("${ledger.retry.max-delay-ms:60000}")
+    private long maxDelayMs;
+
+    @Value("${ledger.retry.topic-partitions:3}")
+    private int topicPartitions;
+
+    /**
+     * Retry topics for the record-mode listeners (attempts includes the first delivery)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ledger.consumer.mode", havingValue = "record", matchIfMissing = true)
+    public RetryTopicConfiguration ledgerRetryTopics(KafkaTemplate<String, Object> kafkaTemplate) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(List.of(transactionsRawTopic, transactionsCorrectionsTopic))
+                .maxAttempts(attempts)
+                .exponentialBackoff(initialDelayMs, multiplier, maxDelayMs)
+                .retryTopicSuffix(".retry")
+                .dltSuffix(DLT_SUFFIX)
+                .suffixTopicsWithIndexValues()
+                .autoCreateTopicsWith(topicPartitions, (short) 1)
+                .create(kafkaTemplate);
+    }
+
+    /**
+     * Error handler for the batch container factory: bounded in-place retries, then the DLT
+     */
+    @Bean
+    @ConditionalOnExpression("'${ledger.consumer.mode:record}' != 'record'")
+    public DefaultErrorHandler batchErrorHandler(KafkaTemplate<String, Object> kafkaTemplate) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(record.topic() + DLT_SUFFIX, -1));
+        recoverer.setHeadersFunction(KafkaRetryConfig::failureHeaders);
+        return new DefaultErrorHandler(recoverer, new FixedBackOff(initialDelayMs, attempts - 1));
+    }
+
+    /**
+     * In record mode the retry topic configuration creates the DLTs itself
+     */
+    @Bean
+    @ConditionalOnExpression("'${ledger.consumer.mode:record}' != 'record'")
+    public NewTopic transactionsRawDlt() {
+        return TopicBuilder.name(transactionsRawTopic + DLT_SUFFIX).partitions(topicPartitions).build();
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${ledger.consumer.mode:record}' != 'record'")
+    public NewTopic transactionsCorrectionsDlt() {
+        return TopicBuilder.name(transactionsCorrectionsTopic + DLT_SUFFIX).partitions(topicPartitions).build();
+    }
+
+    /**
+     * Schedules the delayed redelivery from retry topics. The batch modes have no retry topics;
+     * the retry topic infrastructure then takes the scheduler Spring Boot sets up for @Scheduled
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ledger.consumer.mode", havingValue = "record", matchIfMissing = true)
+    public ThreadPoolTaskScheduler retryTopicTaskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("retry-topic-");
+        return scheduler;
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+        return factory -> factory.setDeadLetterPublishingRecovererCustomizer(
+                recoverer -> recoverer.setHeadersFunction(KafkaRetryConfig::failureHeaders));
+    }
+
+    /**
+     * Failure reason and trace id for a forwarded record.
+     * An incoming trace id is kept (the original headers are copied); otherwise one is assigned.
+     */
+    static Headers failureHeaders(ConsumerRecord<?, ?> record, Exception exception) {
+        Headers headers = new RecordHeaders();
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(exception);
+        String reason = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+        headers.add(FAILURE_REASON_HEADER, reason.getBytes(StandardCharsets.UTF_8));
+
+        if (record.headers().lastHeader(TRACE_ID_HEADER) == null) {
+            String traceId = MDC.get(TRACE_ID_HEADER);
+            if (traceId == null) {
+                traceId = UUID.randomUUID().toString();
+            }
+            headers.add(TRACE_ID_HEADER, traceId.getBytes(StandardCharsets.UTF_8));
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.shadow_ledger_service.config;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary wire format for ledger events on transactions.raw and transactions.corrections.
+ *
+ * Layout (version 1):
+ *   byte    version
+ *   byte    flags: 0x01 debit (else credit), 0x02 timestamp present, 0x04 reason present
+ *   varint  eventId length, UTF-8 bytes
+ *   varint  accountId length, UTF-8 bytes
+ *   zigzag  amount in minor units
+ *   varint  timestamp (if flagged)
+ *   varint  reason length, UTF-8 bytes (if flagged; corrections only, skipped here)
+ *
+ * Producers mark the format with the content-type header; records without it are JSON.
+ * Must stay in step with the encoders in event-service and drift-correction-service.
+ */
+public final class LedgerEventCodec {
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    public static final String JSON_CONTENT_TYPE = "application/json";
+    public static final String BINARY_CONTENT_TYPE = "application/x-ledger-event";
+
+    public static final byte VERSION = 1;
+
+    private static final int FLAG_DEBIT = 0x01;
+    private static final int FLAG_TIMESTAMP = 0x02;
+    private static final int FLAG_REASON = 0x04;
+
+    private static final String CREDIT = "credit";
+    private static final String DEBIT = "debit";
+
+    private static final byte[] BINARY_CONTENT_TYPE_BYTES = BINARY_CONTENT_TYPE.getBytes(StandardCharsets.UTF_8);
+
+    private LedgerEventCodec() {
+    }
+
+    /**
+     * Whether the record headers mark the value as binary
+     */
+    public static boolean isBinary(Headers headers) {
+        if (headers == null) {
+            return false;
+        }
+        Header header = headers.lastHeader(CONTENT_TYPE_HEADER);
+        return header != null && Arrays.equals(header.value(), BINARY_CONTENT_TYPE_BYTES);
+    }
+
+    /**
+     * Replace any content-type header with the given one
+     */
+    public static void setContentType(Headers headers, String contentType) {
+        headers.remove(CONTENT_TYPE_HEADER);
+        headers.add(CONTENT_TYPE_HEADER, contentType.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] encode(LedgerEvent event) {
+        byte[] eventId = utf8(event.getEventId());
+        byte[] accountId = utf8(event.getAccountId());
+
+        int flags = 0;
+        if (DEBIT.equals(event.getType())) {
+            flags |= FLAG_DEBIT;
+        } else if (!CREDIT.equals(event.getType())) {
+            throw new SerializationException("Unsupported event type for binary encoding: " + event.getType());
+        }
+        if (event.getTimestamp() != null) {
+            flags |= FLAG_TIMESTAMP;
+        }
+
+        // Upper bound: two header bytes plus at most 10 bytes per varint
+        Writer out = new Writer(2 + 4 * 10 + eventId.length + accountId.length);
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        out.writeBytes(eventId);
+        out.writeBytes(accountId);
+        out.writeVarLong((event.getAmountMinor() << 1) ^ (event.getAmountMinor() >> 63));
+        if (event.getTimestamp() != null) {
+            out.writeVarLong(event.getTimestamp());
+        }
+        return out.toByteArray();
+    }
+
+    public static LedgerEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported ledger event wire version: " + version);
+        }
+        int flags = in.readByte();
+
+        LedgerEvent event = new LedgerEvent();
+        event.setType((flags & FLAG_DEBIT) != 0 ? DEBIT : CREDIT);
+        event.setEventId(in.readString());
+        event.setAccountId(in.readString());
+        long zigzag = in.readVarLong();
+        event.setAmountMinor((zigzag >>> 1) ^ -(zigzag & 1));
+        if (event.getAmountMinor() <= 0) {
+            throw new SerializationException("amount must be greater than 0");
+        }
+        if ((flags & FLAG_TIMESTAMP) != 0) {
+            event.setTimestamp(in.readVarLong());
+        }
+        if ((flags & FLAG_REASON) != 0) {
+            in.skipString();
+        }
+        return event;
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            throw new SerializationException("eventId and accountId are required for binary encoding");
+        }
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Writer {
+        private final byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] value) {
+            writeVarLong(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            require(1);
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = (byte) readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in ledger event");
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skipString() {
+            position += readLength();
+        }
+
+        private int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > data.length - position) {
+                throw new SerializationException("Truncated ledger event");
+            }
+            return (int) length;
+        }
+
+        private void require(int bytes) {
+            if (data.length - position < bytes) {
+                throw new SerializationException("Truncated ledger event");
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.shadow_ledger_service.config;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.example.shadow_ledger_service.util.Money;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming decoder for LedgerEvent JSON.
+ * Walks the tokens with a JsonParser instead of binding reflectively: field names come
+ * from the parser's canonicalized symbol table (no per-record String), the event type maps
+ * to shared constants, and the amount is parsed from the token text straight into minor units.
+ * The payload is only turned into a String when decoding fails.
+ */
+public class LedgerEventDeserializer implements Deserializer<LedgerEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEventDeserializer.class);
+
+    private static final String CREDIT = "credit";
+    private static final String DEBIT = "debit";
+
+    // Thread-safe and reused; parsers created from it share its field-name symbol table
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+            .enable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+            .build();
+
+    @Override
+    public LedgerEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            log.debug("Received null or empty data for topic: {}", topic);
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            return readEvent(parser);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to deserialize JSON from topic {}: {}", topic, new String(data, StandardCharsets.UTF_8), e);
+            throw new SerializationException("Failed to deserialize JSON", e);
+        }
+    }
+
+    @Override
+    public LedgerEvent deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    private static LedgerEvent readEvent(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+
+        LedgerEvent event = new LedgerEvent();
+        boolean hasAmount = false;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "eventId" -> event.setEventId(parser.getText());
+                case "accountId" -> event.setAccountId(parser.getText());
+                case "type" -> event.setType(readType(parser));
+                case "amount" -> {
+                    event.setAmountMinor(readAmount(parser, value));
+                    hasAmount = true;
+                }
+                case "timestamp" -> event.setTimestamp(value == JsonToken.VALUE_STRING
+                        ? Long.parseLong(parser.getText())
+                        : parser.getLongValue());
+                default -> parser.skipChildren();
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("Expected end of JSON object");
+        }
+        // amountMinor is a primitive, so a missing amount would otherwise be stored as 0
+        if (!hasAmount || event.getAmountMinor() <= 0) {
+            throw new IOException("amount is required and must be greater than 0");
+        }
+        return event;
+    }
+
+    private static String readType(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (matches(CREDIT, chars, offset, length)) {
+            return CREDIT;
+        }
+        if (matches(DEBIT, chars, offset, length)) {
+            return DEBIT;
+        }
+        return parser.getText();
+    }
+
+    private static long readAmount(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return Math.multiplyExact(parser.getLongValue(), 100L);
+        }
+        if (value == JsonToken.VALUE_NUMBER_FLOAT || value == JsonToken.VALUE_STRING) {
+            return Money.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        throw new IOException("Unexpected token for amount: " + value);
+    }
+
+    private static boolean matches(String constant, char[] chars, int offset, int length) {
+        if (constant.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != constant.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
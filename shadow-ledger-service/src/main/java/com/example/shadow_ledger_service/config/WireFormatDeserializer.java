@@ -0,0 +1,41 @@
+package com.example.shadow_ledger_service.config;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads both wire formats during the JSON to binary migration.
+ * Records whose content-type header marks them as binary go through LedgerEventCodec;
+ * everything else, including records from producers that predate the header, is JSON.
+ */
+public class WireFormatDeserializer implements Deserializer<LedgerEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(WireFormatDeserializer.class);
+
+    private final LedgerEventDeserializer jsonDeserializer = new LedgerEventDeserializer();
+
+    @Override
+    public LedgerEvent deserialize(String topic, byte[] data) {
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public LedgerEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (!LedgerEventCodec.isBinary(headers)) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            return LedgerEventCodec.decode(data);
+        } catch (RuntimeException e) {
+            log.error("Failed to deserialize binary ledger event from topic {} ({} bytes)", topic, data.length, e);
+            throw e instanceof SerializationException se ? se : new SerializationException("Failed to deserialize binary ledger event", e);
+        }
+    }
+}
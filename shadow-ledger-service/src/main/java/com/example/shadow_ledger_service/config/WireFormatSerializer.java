@@ -0,0 +1,34 @@
+package com.example.shadow_ledger_service.config;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes a LedgerEvent back out in the format it arrived in.
+ * Records forwarded to retry topics keep the original headers, so a binary event stays
+ * binary and a JSON event is stamped as JSON.
+ */
+public class WireFormatSerializer implements Serializer<LedgerEvent> {
+
+    private final CustomJsonSerializer<LedgerEvent> jsonSerializer = new CustomJsonSerializer<>();
+
+    @Override
+    public byte[] serialize(String topic, LedgerEvent data) {
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, LedgerEvent data) {
+        if (data == null) {
+            return null;
+        }
+        if (LedgerEventCodec.isBinary(headers)) {
+            return LedgerEventCodec.encode(data);
+        }
+        if (headers != null) {
+            LedgerEventCodec.setContentType(headers, LedgerEventCodec.JSON_CONTENT_TYPE);
+        }
+        return jsonSerializer.serialize(topic, data);
+    }
+}
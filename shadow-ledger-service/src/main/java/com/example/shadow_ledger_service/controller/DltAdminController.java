@@ -0,0 +1,76 @@
+package com.example.shadow_ledger_service.controller;
+
+import com.example.shadow_ledger_service.config.KafkaRetryConfig;
+import com.example.shadow_ledger_service.service.DltRedriveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admin operations on the ledger dead-letter topics
+ */
+@RestController
+@RequestMapping("/admin/dlt")
+public class DltAdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(DltAdminController.class);
+
+    private final DltRedriveService redriveService;
+    private final Set<String> dltTopics;
+
+    public DltAdminController(DltRedriveService redriveService,
+                              @Value("${kafka.topics.transactions-raw}") String transactionsRawTopic,
+                              @Value("${kafka.topics.transactions-corrections}") String transactionsCorrectionsTopic) {
+        this.redriveService = redriveService;
+        this.dltTopics = Set.of(transactionsRawTopic + KafkaRetryConfig.DLT_SUFFIX,
+                transactionsCorrectionsTopic + KafkaRetryConfig.DLT_SUFFIX);
+    }
+
+    /**
+     * POST /admin/dlt/{topic}/redrive?max=100
+     * Re-publish dead-lettered records to the topic they failed on
+     */
+    @PostMapping("/{topic}/redrive")
+    public ResponseEntity<Map<String, Object>> redrive(
+            @PathVariable String topic,
+            @RequestParam(name = "max", defaultValue = "100") int max,
+            @RequestHeader(name = "X-Trace-Id", required = false) String traceId) {
+
+        // Set trace ID in MDC for logging
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        try {
+            if (!dltTopics.contains(topic)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Unknown dead-letter topic", "topic", topic));
+            }
+            if (max <= 0) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "max must be greater than 0"));
+            }
+
+            log.info("Re-driving up to {} record(s) from {}", max, topic);
+            int redriven = redriveService.redrive(topic, max);
+
+            return ResponseEntity.ok(Map.of(
+                    "topic", topic,
+                    "redriven", redriven
+            ));
+
+        } catch (Exception e) {
+            log.error("Error re-driving dead-letter topic {}", topic, e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to re-drive dead-letter topic"));
+        } finally {
+            MDC.clear();
+        }
+    }
+}
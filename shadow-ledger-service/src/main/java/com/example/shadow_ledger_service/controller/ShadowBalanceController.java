@@ -1,5 +1,7 @@
 package com.example.shadow_ledger_service.controller;
 
+import com.example.shadow_ledger_service.model.AccountBalance;
+import com.example.shadow_ledger_service.repository.AccountBalanceRepository;
 import com.example.shadow_ledger_service.repository.LedgerRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,7 +10,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller for querying shadow balance
@@ -19,9 +23,12 @@ public class ShadowBalanceController {
 
     private static final Logger log = LoggerFactory.getLogger(ShadowBalanceController.class);
 
+    private final AccountBalanceRepository accountBalanceRepository;
     private final LedgerRepository ledgerRepository;
 
-    public ShadowBalanceController(LedgerRepository ledgerRepository) {
+    public ShadowBalanceController(AccountBalanceRepository accountBalanceRepository,
+                                   LedgerRepository ledgerRepository) {
+        this.accountBalanceRepository = accountBalanceRepository;
         this.ledgerRepository = ledgerRepository;
     }
 
@@ -42,12 +49,9 @@ public class ShadowBalanceController {
         try {
             log.info("Fetching shadow balance for accountId={}", accountId);
 
-            BigDecimal balance = ledgerRepository.getFinalBalance(accountId);
-            if (balance == null) {
-                balance = BigDecimal.ZERO;
-            }
-
-            String lastEventId = ledgerRepository.getLastEventId(accountId);
+            Optional<AccountBalance> accountBalance = accountBalanceRepository.findById(accountId);
+            BigDecimal balance = accountBalance.map(AccountBalance::getBalance).orElse(BigDecimal.ZERO);
+            String lastEventId = accountBalance.map(AccountBalance::getLastEventId).orElse(null);
 
             log.info("Shadow balance retrieved: accountId={}, balance={}, lastEvent={}",
                     accountId, balance, lastEventId);
@@ -67,6 +71,56 @@ public class ShadowBalanceController {
         }
     }
 
+    /**
+     * GET /accounts/{accountId}/shadow-balance/verify
+     * Recomputes the balance from full history with the window function and
+     * compares it with the incrementally maintained balance
+     */
+    @GetMapping("/{accountId}/shadow-balance/verify")
+    public ResponseEntity<Map<String, Object>> verifyShadowBalance(
+            @PathVariable String accountId,
+            @RequestHeader(name = "X-Trace-Id", required = false) String traceId) {
+
+        // Set trace ID in MDC for logging
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        try {
+            log.info("Verifying shadow balance for accountId={}", accountId);
+
+            BigDecimal maintained = accountBalanceRepository.findById(accountId)
+                    .map(AccountBalance::getBalance)
+                    .orElse(BigDecimal.ZERO);
+
+            List<Object[]> rows = ledgerRepository.computeBalanceWithWindow(accountId);
+            BigDecimal recomputed = rows.isEmpty()
+                    ? BigDecimal.ZERO
+                    : (BigDecimal) rows.get(rows.size() - 1)[5];
+
+            boolean consistent = maintained.compareTo(recomputed) == 0;
+            if (!consistent) {
+                log.warn("Shadow balance mismatch: accountId={}, maintained={}, recomputed={}",
+                        accountId, maintained, recomputed);
+            }
+
+            return ResponseEntity.ok(Map.of(
+                    "accountId", accountId,
+                    "maintainedBalance", maintained,
+                    "recomputedBalance", recomputed,
+                    "eventCount", rows.size(),
+                    "consistent", consistent
+            ));
+
+        } catch (Exception e) {
+            log.error("Error verifying shadow balance for accountId={}", accountId, e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to verify shadow balance"));
+        } finally {
+            MDC.clear();
+        }
+    }
+
     /**
      * GET /accounts/service-status
      * Simple endpoint for API Gateway to verify service is available
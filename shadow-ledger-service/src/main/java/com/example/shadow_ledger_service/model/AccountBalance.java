@@ -0,0 +1,39 @@
+package com.example.shadow_ledger_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Incrementally maintained balance for an account.
+ * Updated in the same transaction as each append to the ledger table.
+ */
+@Entity
+@Table(name = "account_balances")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+    @Id
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "last_event_id")
+    private String lastEventId; // last event in (timestamp, event_id) order
+
+    @Column(name = "last_timestamp")
+    private Long lastTimestamp;
+
+    @Column(name = "event_count", nullable = false)
+    private long eventCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -1,13 +1,16 @@
 package com.example.shadow_ledger_service.model;
 
+import com.example.shadow_ledger_service.util.MoneyConverter;
+import com.example.shadow_ledger_service.util.MoneyJson;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
@@ -30,9 +33,13 @@ public class LedgerEvent {
     @JsonProperty("type")
     private String type; // debit or credit
 
+    // Minor units (cents); decimal only in JSON and in the NUMERIC column
     @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    @Convert(converter = MoneyConverter.class)
     @JsonProperty("amount")
-    private BigDecimal amount;
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long amountMinor;
 
     @Column(name = "timestamp", nullable = false)
     @JsonProperty("timestamp")
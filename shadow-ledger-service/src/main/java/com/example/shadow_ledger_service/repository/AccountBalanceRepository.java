@@ -0,0 +1,33 @@
+package com.example.shadow_ledger_service.repository;
+
+import com.example.shadow_ledger_service.model.AccountBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read access to incrementally maintained account balances
+ * Writes go through LedgerWriter so they share the ledger append transaction
+ */
+public interface AccountBalanceRepository extends JpaRepository<AccountBalance, String> {
+
+    /**
+     * Read an account balance holding a row lock until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AccountBalance b WHERE b.accountId = :accountId")
+    Optional<AccountBalance> findForUpdate(@Param("accountId") String accountId);
+
+    /**
+     * Read several account balances holding row locks, taken in account_id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AccountBalance b WHERE b.accountId IN :accountIds ORDER BY b.accountId")
+    List<AccountBalance> findAllForUpdate(@Param("accountIds") Collection<String> accountIds);
+}
@@ -0,0 +1,96 @@
+package com.example.shadow_ledger_service.repository;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.example.shadow_ledger_service.util.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Plain JDBC inserts into the ledger.
+ * The primary key does the duplicate check: rows whose eventId already exists are skipped
+ * by ON CONFLICT DO NOTHING rather than failing the transaction.
+ */
+@Repository
+public class LedgerInsertRepository {
+
+    private static final String INSERT_IF_ABSENT_SQL = """
+        INSERT INTO ledger (event_id, account_id, type, amount, timestamp, created_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (event_id) DO NOTHING
+    """;
+
+    // One statement for the whole batch; RETURNING reports exactly which rows went in
+    private static final String INSERT_ALL_IF_ABSENT_SQL = """
+        INSERT INTO ledger (event_id, account_id, type, amount, timestamp, created_at)
+        SELECT e.event_id, e.account_id, e.type, e.amount, e.timestamp, ?
+        FROM unnest(CAST(? AS varchar[]), CAST(? AS varchar[]), CAST(? AS varchar[]),
+                    CAST(? AS numeric[]), CAST(? AS bigint[]))
+             AS e(event_id, account_id, type, amount, timestamp)
+        ON CONFLICT (event_id) DO NOTHING
+        RETURNING event_id
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerInsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert one event unless its eventId is already in the ledger
+     *
+     * @return 1 if inserted, 0 if the eventId was a duplicate
+     */
+    public int insertIfAbsent(LedgerEvent event) {
+        return jdbcTemplate.update(INSERT_IF_ABSENT_SQL,
+                event.getEventId(),
+                event.getAccountId(),
+                event.getType(),
+                Money.toDecimal(event.getAmountMinor()),
+                event.getTimestamp(),
+                Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Insert events whose eventIds are not already in the ledger
+     *
+     * @return eventIds actually inserted
+     */
+    public List<String> insertAllIfAbsent(List<LedgerEvent> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+
+        int size = events.size();
+        String[] eventIds = new String[size];
+        String[] accountIds = new String[size];
+        String[] types = new String[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        Long[] timestamps = new Long[size];
+        for (int i = 0; i < size; i++) {
+            LedgerEvent event = events.get(i);
+            eventIds[i] = event.getEventId();
+            accountIds[i] = event.getAccountId();
+            types[i] = event.getType();
+            amounts[i] = Money.toDecimal(event.getAmountMinor());
+            timestamps[i] = event.getTimestamp();
+        }
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_ALL_IF_ABSENT_SQL);
+            ps.setTimestamp(1, Timestamp.from(Instant.now()));
+            ps.setArray(2, con.createArrayOf("varchar", eventIds));
+            ps.setArray(3, con.createArrayOf("varchar", accountIds));
+            ps.setArray(4, con.createArrayOf("varchar", types));
+            ps.setArray(5, con.createArrayOf("numeric", amounts));
+            ps.setArray(6, con.createArrayOf("bigint", timestamps));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+    }
+}
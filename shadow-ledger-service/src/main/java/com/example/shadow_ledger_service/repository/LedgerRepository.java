@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,12 @@ public interface LedgerRepository extends JpaRepository<LedgerEvent, String> {
 
     List<LedgerEvent> findByAccountIdOrderByTimestampAscEventIdAsc(String accountId);
 
+    /**
+     * Set-based deduplication: returns the subset of the given event IDs already in the ledger
+     */
+    @Query("SELECT e.eventId FROM LedgerEvent e WHERE e.eventId IN :eventIds")
+    List<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
+
     /**
      * Compute shadow balance using SQL window function
      * This calculates running balance with deterministic ordering
@@ -34,7 +41,8 @@ public interface LedgerRepository extends JpaRepository<LedgerEvent, String> {
     List<Object[]> computeBalanceWithWindow(@Param("accountId") String accountId);
 
     /**
-     * Get final balance for an account
+     * Get final balance for an account by summing its full history
+     * The hot path reads account_balances instead; this is kept for verification
      */
     @Query(value = """
         SELECT COALESCE(SUM(CASE WHEN type='credit' THEN amount ELSE -amount END), 0) 
@@ -0,0 +1,78 @@
+package com.example.shadow_ledger_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer sequencer per account.
+ * Serializes all ledger writes for one account across the raw and correction listeners
+ * while different accounts run in parallel. Accounts are hashed onto a fixed set of
+ * striped locks, so memory stays bounded regardless of the number of accounts.
+ *
+ * Locks must be held around the whole write transaction (acquire, begin, commit, release),
+ * so callers take the lock outside of any @Transactional boundary.
+ */
+@Component
+public class AccountSequencer {
+
+    private final ReentrantLock[] stripes;
+
+    public AccountSequencer(@Value("${ledger.sequencer.stripes:1024}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("ledger.sequencer.stripes must be greater than 0");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run an action while holding the lock for one account
+     */
+    public void runExclusive(String accountId, Runnable action) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run an action while holding the locks for several accounts.
+     * Stripes are acquired in ascending index order so concurrent callers cannot deadlock.
+     */
+    public <T> T callExclusive(Collection<String> accountIds, Supplier<T> action) {
+        boolean[] needed = new boolean[stripes.length];
+        for (String accountId : accountIds) {
+            needed[stripeOf(accountId)] = true;
+        }
+
+        int acquired = 0;
+        try {
+            for (int i = 0; i < stripes.length; i++) {
+                if (needed[i]) {
+                    stripes[i].lock();
+                    acquired = i + 1;
+                }
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                if (needed[i]) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+    }
+
+    int stripeOf(String accountId) {
+        return Math.floorMod(accountId.hashCode(), stripes.length);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.shadow_ledger_service.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Periodically snapshots account_balances into account_balance_checkpoints, so balances as of
+ * a past (timestamp, event_id) position can be computed from the nearest checkpoint plus the
+ * ledger rows after it instead of the full history.
+ *
+ * An account gets a new checkpoint once it has min-events rows past its latest one, which
+ * bounds the table at roughly ledger size / min-events. Rows are read FOR SHARE, so a
+ * checkpoint never races a write to the same account; locked accounts are picked up next run.
+ */
+@Service
+public class BalanceCheckpointService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceCheckpointService.class);
+
+    // The balance row's last position is its highest, so balance covers every row at or before it
+    // Returns how many checkpoints were written and the last account id, to resume after
+    private static final String CHECKPOINT_SQL = """
+        WITH written AS (
+            INSERT INTO account_balance_checkpoints (account_id, ts, event_id, balance, event_count)
+            SELECT b.account_id, b.last_timestamp, b.last_event_id, b.balance, b.event_count
+            FROM account_balances b
+            WHERE b.account_id > ?
+              AND b.last_timestamp IS NOT NULL
+              AND b.event_count - COALESCE(
+                    (SELECT MAX(c.event_count) FROM account_balance_checkpoints c WHERE c.account_id = b.account_id), 0) >= ?
+            ORDER BY b.account_id
+            LIMIT ?
+            FOR SHARE OF b SKIP LOCKED
+            ON CONFLICT DO NOTHING
+            RETURNING account_id
+        )
+        SELECT COUNT(*), MAX(account_id) FROM written
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int minEvents;
+    private final int batchSize;
+
+    public BalanceCheckpointService(JdbcTemplate jdbcTemplate,
+                                    @Value("${ledger.checkpoints.enabled:true}") boolean enabled,
+                                    @Value("${ledger.checkpoints.min-events:100}") int minEvents,
+                                    @Value("${ledger.checkpoints.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.minEvents = minEvents;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Checkpoint every account that is due, one batch of accounts per statement
+     */
+    @Scheduled(fixedDelayString = "${ledger.checkpoints.interval-ms:300000}")
+    public void checkpoint() {
+        if (!enabled) {
+            return;
+        }
+
+        String after = "";
+        long total = 0;
+        Batch batch;
+        do {
+            batch = jdbcTemplate.queryForObject(CHECKPOINT_SQL,
+                    (rs, rowNum) -> new Batch(rs.getLong(1), rs.getString(2)),
+                    after, minEvents, batchSize);
+            total += batch.written();
+            after = batch.lastAccountId();
+        } while (batch.written() == batchSize);
+
+        if (total > 0) {
+            log.info("Balance checkpoints written: {}", total);
+        }
+    }
+
+    private record Batch(long written, String lastAccountId) {}
+}
@@ -0,0 +1,122 @@
+package com.example.shadow_ledger_service.service;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kafka consumer offsets stored in the ledger database.
+ * Offsets are written in the same transaction as the ledger rows they cover, and listeners
+ * seek to them on partition assignment, so a crash between DB commit and Kafka ack does
+ * not replay already-applied events.
+ */
+@Component
+public class ConsumerOffsetStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerOffsetStore.class);
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO consumer_offsets (consumer_group, topic, partition_id, next_offset, updated_at)
+        VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT (consumer_group, topic, partition_id) DO UPDATE SET
+            next_offset = GREATEST(consumer_offsets.next_offset, EXCLUDED.next_offset),
+            updated_at = EXCLUDED.updated_at
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String consumerGroup;
+
+    public ConsumerOffsetStore(JdbcTemplate jdbcTemplate,
+                               @Value("${spring.kafka.consumer.group-id}") String consumerGroup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consumerGroup = consumerGroup;
+    }
+
+    /**
+     * Store the next offset to consume for each partition.
+     * Joins the caller's transaction so offsets commit atomically with the ledger rows.
+     */
+    @Transactional
+    public void save(Map<TopicPartition, Long> nextOffsets) {
+        if (nextOffsets.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Map.Entry<TopicPartition, Long>> entries = new ArrayList<>(nextOffsets.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, consumerGroup);
+            ps.setString(2, entry.getKey().topic());
+            ps.setInt(3, entry.getKey().partition());
+            ps.setLong(4, entry.getValue());
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    /**
+     * Load stored offsets for the given partitions; partitions never stored are absent
+     */
+    public Map<TopicPartition, Long> load(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        if (partitions.isEmpty()) {
+            return offsets;
+        }
+
+        jdbcTemplate.query("""
+            SELECT topic, partition_id, next_offset
+            FROM consumer_offsets
+            WHERE consumer_group = ?
+        """, rs -> {
+            TopicPartition partition = new TopicPartition(rs.getString(1), rs.getInt(2));
+            if (partitions.contains(partition)) {
+                offsets.put(partition, rs.getLong(3));
+            }
+        }, consumerGroup);
+        return offsets;
+    }
+
+    /**
+     * Seek newly assigned partitions forward to their stored offsets.
+     * Kafka's committed position can also be ahead of the stored one: records handed to a
+     * retry topic or DLT are committed in Kafka without a ledger write. Each partition
+     * resumes from whichever is further, so neither kind of record is replayed.
+     *
+     * @param assignments assigned partitions and their current positions
+     */
+    public void seekToStored(Map<TopicPartition, Long> assignments, ConsumerSeekAware.ConsumerSeekCallback callback) {
+        load(assignments.keySet()).forEach((partition, offset) -> {
+            Long position = assignments.get(partition);
+            if (position == null || offset > position) {
+                log.info("Seeking {} to stored offset {}", partition, offset);
+                callback.seek(partition.topic(), partition.partition(), offset);
+            }
+        });
+    }
+
+    /**
+     * Next offset per partition covering positions[0, end): one past the highest consumed offset
+     */
+    public static Map<TopicPartition, Long> nextOffsets(List<TopicPartitionOffset> positions, int end) {
+        Map<TopicPartition, Long> next = new LinkedHashMap<>();
+        for (int i = 0; i < end && i < positions.size(); i++) {
+            TopicPartitionOffset position = positions.get(i);
+            next.merge(position.getTopicPartition(), position.getOffset() + 1, Math::max);
+        }
+        return next;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-partition Bloom filters of recently written eventIds, used by the batch and parallel
+ * consumers to skip the ledger dedup query for events that cannot be duplicates.
+ *
+ * Filters are rebuilt in the background when partitions are assigned, so the rebalance
+ * callback returns at once, and dropped when they are revoked. Producers key records by
+ * accountId, so each partition's accounts are found by recomputing Kafka's default
+ * partitioner over account_balances; the rebuild then reads at most expected-insertions of
+ * that partition's most recent ledger rows. Until a partition's filter is ready every event
+ * on it is treated as a possible duplicate, and events written meanwhile are added to the
+ * filter being built.
+ *
+ * Only created in the batch and parallel modes; the record-mode consumer does not use it.
+ */
+@Component
+@ConditionalOnExpression("'${ledger.consumer.mode:record}' != 'record'")
+public class DedupFilterRegistry implements ConsumerAwareRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DedupFilterRegistry.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final Map<TopicPartition, EventIdBloomFilter> filters = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, EventIdBloomFilter> building = new ConcurrentHashMap<>();
+    private final ExecutorService rebuilder =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("dedup-filter-rebuild").daemon().factory());
+
+    private final Counter checked;
+    private final Counter flagged;
+    private final Counter missed;
+    private final AtomicLong confirmed = new AtomicLong();
+
+    public DedupFilterRegistry(JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${ledger.dedup-filter.enabled:true}") boolean enabled,
+                               @Value("${ledger.dedup-filter.expected-insertions:1000000}") int expectedInsertions,
+                               @Value("${ledger.dedup-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.checked = Counter.builder("ledger.dedup.filter.checked")
+                .description("Events checked against the filter")
+                .register(meterRegistry);
+        this.flagged = Counter.builder("ledger.dedup.filter.flagged")
+                .description("Events the filter sent to the ledger dedup query")
+                .register(meterRegistry);
+        this.missed = Counter.builder("ledger.dedup.filter.missed")
+                .description("Batches retried because the filter let a duplicate through")
+                .register(meterRegistry);
+        Gauge.builder("ledger.dedup.filter.false.positive.rate", this, DedupFilterRegistry::observedFalsePositiveRate)
+                .description("Share of non-duplicate events the filter flagged as possible duplicates")
+                .register(meterRegistry);
+        Gauge.builder("ledger.dedup.filter.memory", this, DedupFilterRegistry::memoryBytes)
+                .description("Memory held by all partition filters")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!enabled || partitions.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, Integer> partitionCounts = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            partitionCounts.put(partition, consumer.partitionsFor(partition.topic()).size());
+            building.put(partition, new EventIdBloomFilter(expectedInsertions, falsePositiveRate));
+        }
+        rebuilder.execute(() -> rebuild(partitionCounts));
+    }
+
+    /**
+     * Fill the filters being built for the given partitions and publish each one when it is
+     * complete; runs on the rebuild thread
+     */
+    void rebuild(Map<TopicPartition, Integer> partitionCounts) {
+        Map<TopicPartition, List<String>> accounts;
+        try {
+            accounts = accountsByPartition(partitionCounts);
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild dedup filters for {}; their events keep the full dedup query",
+                    partitionCounts.keySet(), e);
+            partitionCounts.keySet().forEach(building::remove);
+            return;
+        }
+
+        for (TopicPartition partition : partitionCounts.keySet()) {
+            EventIdBloomFilter filter = building.get(partition);
+            if (filter == null) {
+                // Revoked before its turn
+                continue;
+            }
+            try {
+                int loaded = load(filter, accounts.getOrDefault(partition, List.of()));
+                // Publish only if the partition was not revoked or reassigned meanwhile
+                if (building.remove(partition, filter)) {
+                    filters.put(partition, filter);
+                    log.info("Rebuilt dedup filter for {} from {} recent ledger rows", partition, loaded);
+                }
+            } catch (RuntimeException e) {
+                building.remove(partition, filter);
+                log.warn("Could not rebuild dedup filter for {}; its events keep the full dedup query", partition, e);
+            }
+        }
+    }
+
+    private Map<TopicPartition, List<String>> accountsByPartition(Map<TopicPartition, Integer> partitionCounts) {
+        Map<TopicPartition, List<String>> accounts = new HashMap<>();
+        jdbcTemplate.query("SELECT account_id FROM account_balances", rs -> {
+            String accountId = rs.getString(1);
+            partitionCounts.forEach((partition, count) -> {
+                if (partitionOf(accountId, count) == partition.partition()) {
+                    accounts.computeIfAbsent(partition, p -> new ArrayList<>()).add(accountId);
+                }
+            });
+        });
+        return accounts;
+    }
+
+    private int load(EventIdBloomFilter filter, List<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            return 0;
+        }
+        String[] accountArray = accountIds.toArray(new String[0]);
+        int[] loaded = {0};
+        // Oldest first so the newest ids land in the current generation
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                SELECT event_id FROM (
+                    SELECT event_id, created_at
+                    FROM ledger
+                    WHERE account_id = ANY(CAST(? AS varchar[]))
+                    ORDER BY created_at DESC
+                    LIMIT ?
+                ) recent
+                ORDER BY created_at
+            """);
+            ps.setArray(1, con.createArrayOf("varchar", accountArray));
+            ps.setInt(2, expectedInsertions);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            filter.put(rs.getString(1));
+            loaded[0]++;
+        });
+        return loaded[0];
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(this::forget);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(this::forget);
+    }
+
+    private void forget(TopicPartition partition) {
+        filters.remove(partition);
+        building.remove(partition);
+    }
+
+    /**
+     * EventIds among the records that may already be in the ledger
+     */
+    public Set<String> dedupCandidates(List<ConsumerRecord<String, LedgerEvent>> records) {
+        Set<String> candidates = new HashSet<>();
+        long filtered = 0;
+        long hits = 0;
+        for (ConsumerRecord<String, LedgerEvent> record : records) {
+            String eventId = record.value().getEventId();
+            EventIdBloomFilter filter = enabled
+                    ? filters.get(new TopicPartition(record.topic(), record.partition()))
+                    : null;
+            if (filter == null) {
+                candidates.add(eventId);
+                continue;
+            }
+            filtered++;
+            if (filter.mightContain(eventId)) {
+                candidates.add(eventId);
+                hits++;
+            }
+        }
+        checked.increment(filtered);
+        flagged.increment(hits);
+        return candidates;
+    }
+
+    /**
+     * Remember the records' eventIds once they are committed to the ledger
+     */
+    public void recordWritten(List<ConsumerRecord<String, LedgerEvent>> records) {
+        if (!enabled) {
+            return;
+        }
+        for (ConsumerRecord<String, LedgerEvent> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            EventIdBloomFilter filter = filters.get(partition);
+            if (filter == null) {
+                // Still rebuilding; the rebuild's snapshot may not include this write
+                filter = building.get(partition);
+            }
+            if (filter != null) {
+                filter.put(record.value().getEventId());
+            }
+        }
+    }
+
+    /**
+     * Record how many flagged candidates the ledger confirmed as duplicates
+     */
+    public void recordConfirmed(int duplicates) {
+        if (enabled) {
+            confirmed.addAndGet(duplicates);
+        }
+    }
+
+    /**
+     * Record a duplicate the filter let through (older than the filter window)
+     */
+    public void recordMiss() {
+        missed.increment();
+    }
+
+    double observedFalsePositiveRate() {
+        double negatives = checked.count() - confirmed.get();
+        return negatives <= 0 ? 0.0 : Math.max(0, flagged.count() - confirmed.get()) / negatives;
+    }
+
+    private double memoryBytes() {
+        return filters.values().stream().mapToLong(EventIdBloomFilter::sizeInBytes).sum();
+    }
+
+    /**
+     * Partition chosen by Kafka's default partitioner for a record keyed by accountId
+     */
+    static int partitionOf(String accountId, int partitionCount) {
+        return Utils.toPositive(Utils.murmur2(accountId.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+}
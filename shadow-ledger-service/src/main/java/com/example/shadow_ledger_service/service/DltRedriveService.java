@@ -0,0 +1,136 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.config.KafkaRetryConfig;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Re-drives records from a dead-letter topic back to the topic they came from.
+ *
+ * Records are copied as raw bytes with their original key and headers (minus the kafka_dlt-*
+ * bookkeeping), so events that failed validation get a fresh pass through the normal
+ * listeners; eventId deduplication makes a repeated re-drive harmless. Progress through
+ * each DLT is tracked under a dedicated consumer group.
+ */
+@Service
+public class DltRedriveService {
+
+    private static final Logger log = LoggerFactory.getLogger(DltRedriveService.class);
+
+    public static final String REDRIVE_GROUP = "shadow-ledger-dlt-redrive";
+    public static final String REDRIVE_COUNT_HEADER = "x-redrive-count";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final DefaultKafkaConsumerFactory<String, byte[]> consumerFactory;
+
+    public DltRedriveService(KafkaTemplate<String, Object> kafkaTemplate,
+                             @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        this.kafkaTemplate = kafkaTemplate;
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, REDRIVE_GROUP);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        this.consumerFactory = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    /**
+     * Copy up to maxRecords not yet re-driven records from the DLT back to their source topic
+     *
+     * @return number of records re-driven
+     */
+    public synchronized int redrive(String dltTopic, int maxRecords) {
+        String defaultTarget = dltTopic.substring(0, dltTopic.length() - KafkaRetryConfig.DLT_SUFFIX.length());
+
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer()) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(dltTopic)) {
+                partitions.add(new TopicPartition(dltTopic, info.partition()));
+            }
+            consumer.assign(partitions);
+
+            int redriven = 0;
+            while (redriven < maxRecords) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                Map<TopicPartition, OffsetAndMetadata> next = new HashMap<>();
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (redriven == maxRecords) {
+                        break;
+                    }
+                    sends.add(kafkaTemplate.send(toSource(record, defaultTarget)));
+                    next.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    redriven++;
+                }
+
+                // Only move the re-drive position once the copies are acknowledged
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+                consumer.commitSync(next);
+            }
+
+            log.info("Re-drove {} record(s) from {}", redriven, dltTopic);
+            return redriven;
+        }
+    }
+
+    ProducerRecord<String, Object> toSource(ConsumerRecord<String, byte[]> record, String defaultTarget) {
+        // The first original-topic header is where the record was first consumed;
+        // later ones can name a retry topic it passed through
+        String target = defaultTarget;
+        for (Header originalTopic : record.headers().headers(KafkaHeaders.DLT_ORIGINAL_TOPIC)) {
+            target = new String(originalTopic.value(), StandardCharsets.UTF_8);
+            break;
+        }
+        int retrySuffix = target.indexOf(".retry");
+        if (retrySuffix > 0) {
+            target = target.substring(0, retrySuffix);
+        }
+
+        ProducerRecord<String, Object> copy = new ProducerRecord<>(target, record.key(), record.value());
+        int redriveCount = 1;
+        for (Header header : record.headers()) {
+            if (header.key().equals(REDRIVE_COUNT_HEADER)) {
+                redriveCount = Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8)) + 1;
+            } else if (!header.key().startsWith(KafkaHeaders.PREFIX + "dlt-")
+                    && !header.key().equals(KafkaRetryConfig.FAILURE_REASON_HEADER)
+                    && !header.key().startsWith("retry_topic-")) {
+                copy.headers().add(header);
+            }
+        }
+        copy.headers().add(REDRIVE_COUNT_HEADER, Integer.toString(redriveCount).getBytes(StandardCharsets.UTF_8));
+        return copy;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.shadow_ledger_service.service;
+
+import java.util.Arrays;
+
+/**
+ * Memory-bounded Bloom filter of recently seen eventIds.
+ *
+ * Two generations of fixed size are kept: once the current generation holds its expected
+ * number of insertions it becomes the previous one and a fresh generation starts, so memory
+ * never grows and the filter always covers at least the last expectedInsertions events.
+ * A negative answer is definite for the covered window; a positive answer only means
+ * "possibly seen" and must be confirmed against the ledger.
+ */
+public class EventIdBloomFilter {
+
+    private final int expectedInsertions;
+    private final int bitCount;
+    private final int hashCount;
+
+    private long[] current;
+    private long[] previous;
+    private int currentInsertions;
+
+    public EventIdBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be greater than 0");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        this.expectedInsertions = expectedInsertions;
+
+        // Standard sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        double bits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(bits)));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+
+        this.current = new long[(bitCount + 63) >>> 6];
+        this.previous = new long[current.length];
+    }
+
+    public synchronized void put(String eventId) {
+        if (currentInsertions >= expectedInsertions) {
+            rotate();
+        }
+        long hash = hash64(eventId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        currentInsertions++;
+    }
+
+    public synchronized boolean mightContain(String eventId) {
+        long hash = hash64(eventId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return contains(current, h1, h2) || contains(previous, h1, h2);
+    }
+
+    /**
+     * Memory held by both generations
+     */
+    public long sizeInBytes() {
+        return 2L * current.length * Long.BYTES;
+    }
+
+    private boolean contains(long[] bits, int h1, int h2) {
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotate() {
+        long[] recycled = previous;
+        Arrays.fill(recycled, 0L);
+        previous = current;
+        current = recycled;
+        currentInsertions = 0;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, finished with the MurmurHash3 fmix64 avalanche
+     */
+    static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
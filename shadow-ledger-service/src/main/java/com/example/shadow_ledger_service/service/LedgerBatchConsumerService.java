@@ -0,0 +1,140 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batch-mode consumer: takes a whole poll from Kafka and writes it to the shadow ledger
+ * in a single transaction. Enabled with ledger.consumer.mode=batch
+ */
+@Service
+@ConditionalOnProperty(name = "ledger.consumer.mode", havingValue = "batch")
+public class LedgerBatchConsumerService implements ConsumerSeekAware {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerBatchConsumerService.class);
+    private static final LogAccessor logAccessor = new LogAccessor(LedgerBatchConsumerService.class);
+
+    private final LedgerWriter ledgerWriter;
+    private final AccountSequencer accountSequencer;
+    private final ConsumerOffsetStore offsetStore;
+    private final DedupFilterRegistry dedupFilter;
+
+    public LedgerBatchConsumerService(LedgerWriter ledgerWriter,
+                                      AccountSequencer accountSequencer,
+                                      ConsumerOffsetStore offsetStore,
+                                      DedupFilterRegistry dedupFilter) {
+        this.ledgerWriter = ledgerWriter;
+        this.accountSequencer = accountSequencer;
+        this.offsetStore = offsetStore;
+        this.dedupFilter = dedupFilter;
+    }
+
+    /**
+     * Resume from the offsets stored alongside the ledger rows
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        offsetStore.seekToStored(assignments, callback);
+    }
+
+    /**
+     * Consume a batch of events from transactions.raw topic
+     */
+    @KafkaListener(topics = "${kafka.topics.transactions-raw}", groupId = "shadow-ledger-consumer-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeRawBatch(List<ConsumerRecord<String, LedgerEvent>> records,
+                                Acknowledgment acknowledgment) {
+        log.info("Received raw transaction batch: size={}", records.size());
+        processBatch(records, acknowledgment);
+    }
+
+    /**
+     * Consume a batch of correction events from transactions.corrections topic
+     */
+    @KafkaListener(topics = "${kafka.topics.transactions-corrections}", groupId = "shadow-ledger-consumer-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeCorrectionBatch(List<ConsumerRecord<String, LedgerEvent>> records,
+                                       Acknowledgment acknowledgment) {
+        log.info("Received correction transaction batch: size={}", records.size());
+        processBatch(records, acknowledgment);
+    }
+
+    /**
+     * Write the deserializable prefix of the batch, then acknowledge it or report the first
+     * failing record so the container error handler commits everything before it.
+     */
+    private void processBatch(List<ConsumerRecord<String, LedgerEvent>> records, Acknowledgment acknowledgment) {
+        List<LedgerEvent> events = new ArrayList<>(records.size());
+        List<TopicPartitionOffset> positions = new ArrayList<>(records.size());
+        Set<String> accountIds = new HashSet<>();
+        int poisonIndex = -1;
+        for (int i = 0; i < records.size(); i++) {
+            LedgerEvent event = records.get(i).value();
+            if (event == null) {
+                poisonIndex = i;
+                break;
+            }
+            events.add(event);
+            positions.add(new TopicPartitionOffset(records.get(i).topic(), records.get(i).partition(),
+                    records.get(i).offset()));
+            accountIds.add(event.getAccountId());
+        }
+
+        List<ConsumerRecord<String, LedgerEvent>> written = records.subList(0, events.size());
+        Set<String> candidates = dedupFilter.dedupCandidates(written);
+        LedgerWriter.BatchResult result = accountSequencer.callExclusive(accountIds, () -> {
+            try {
+                LedgerWriter.BatchResult filtered = ledgerWriter.writeBatch(events, positions, candidates);
+                dedupFilter.recordConfirmed(filtered.existing());
+                return filtered;
+            } catch (LedgerWriter.UnexpectedDuplicateException e) {
+                // The filter only covers recent events; fall back to checking every eventId
+                log.warn("Dedup filter missed a duplicate, retrying batch with full dedup: {}", e.getMessage());
+                dedupFilter.recordMiss();
+                return ledgerWriter.writeBatch(events, positions);
+            }
+        });
+        dedupFilter.recordWritten(written.subList(0, result.failed() ? result.failedIndex() : written.size()));
+
+        if (result.failed()) {
+            ConsumerRecord<String, LedgerEvent> failed = records.get(result.failedIndex());
+            log.error("Error processing batch at offset {} on {}-{}: {}",
+                    failed.offset(), failed.topic(), failed.partition(), result.failureReason());
+            throw new BatchListenerFailedException(result.failureReason(),
+                    new IllegalStateException(result.failureReason()), result.failedIndex());
+        }
+
+        if (poisonIndex >= 0) {
+            ConsumerRecord<String, LedgerEvent> poison = records.get(poisonIndex);
+            DeserializationException cause = SerializationUtils.getExceptionFromHeader(
+                    poison, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, logAccessor);
+            log.error("Undeserializable record in batch at offset {} on {}-{}",
+                    poison.offset(), poison.topic(), poison.partition());
+            throw new BatchListenerFailedException("Failed to deserialize event", cause, poisonIndex);
+        }
+
+        // Acknowledge the batch
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+}
@@ -1,46 +1,71 @@
 package com.example.shadow_ledger_service.service;
 
 import com.example.shadow_ledger_service.model.LedgerEvent;
-import com.example.shadow_ledger_service.repository.LedgerRepository;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.TopicPartitionOffset;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.Map;
 
 /**
  * Service that consumes events from Kafka and maintains the shadow ledger
+ * One record per transaction; this is the default ledger.consumer.mode=record
+ *
+ * Failed records do not block the partition: they move through the retry topics set up in
+ * KafkaRetryConfig (which these listeners also consume) and end up in the topic's DLT.
  */
 @Service
-public class LedgerEventConsumerService {
+@ConditionalOnProperty(name = "ledger.consumer.mode", havingValue = "record", matchIfMissing = true)
+public class LedgerEventConsumerService implements ConsumerSeekAware {
 
     private static final Logger log = LoggerFactory.getLogger(LedgerEventConsumerService.class);
 
-    private final LedgerRepository ledgerRepository;
+    private final LedgerWriter ledgerWriter;
+    private final AccountSequencer accountSequencer;
+    private final ConsumerOffsetStore offsetStore;
 
-    public LedgerEventConsumerService(LedgerRepository ledgerRepository) {
-        this.ledgerRepository = ledgerRepository;
+    public LedgerEventConsumerService(LedgerWriter ledgerWriter,
+                                      AccountSequencer accountSequencer,
+                                      ConsumerOffsetStore offsetStore) {
+        this.ledgerWriter = ledgerWriter;
+        this.accountSequencer = accountSequencer;
+        this.offsetStore = offsetStore;
+    }
+
+    /**
+     * Resume from the offsets stored alongside the ledger rows
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        offsetStore.seekToStored(assignments, callback);
     }
 
     /**
      * Consume events from transactions.raw topic
      */
     @KafkaListener(topics = "${kafka.topics.transactions-raw}", groupId = "shadow-ledger-consumer-group")
-    @Transactional
     public void consumeRawTransaction(@Payload LedgerEvent event,
                                      @Header(KafkaHeaders.RECEIVED_KEY) String key,
+                                     @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                     @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                     @Header(KafkaHeaders.OFFSET) long offset,
                                      Acknowledgment acknowledgment) {
         try {
-            log.info("Received raw transaction: key={}, eventId={}, accountId={}, type={}, amount={}",
-                    key, event.getEventId(), event.getAccountId(), event.getType(), event.getAmount());
+            log.info("Received raw transaction: key={}, eventId={}, accountId={}, type={}, amountMinor={}",
+                    key, event.getEventId(), event.getAccountId(), event.getType(), event.getAmountMinor());
 
-            processEvent(event);
+            // Serialized per account across both topics; the write commits before the lock is released
+            TopicPartitionOffset position = new TopicPartitionOffset(topic, partition, offset);
+            accountSequencer.runExclusive(event.getAccountId(), () -> ledgerWriter.write(event, position));
 
             // Acknowledge the message
             if (acknowledgment != null) {
@@ -48,7 +73,7 @@ public class LedgerEventConsumerService {
             }
         } catch (Exception e) {
             log.error("Error processing raw transaction: key={}", key, e);
-            // In production, implement dead letter queue handling
+            // The container error handler forwards the record to the next retry topic, then the DLT
             throw new RuntimeException("Failed to process event", e);
         }
     }
@@ -57,15 +82,19 @@ public class LedgerEventConsumerService {
      * Consume correction events from transactions.corrections topic
      */
     @KafkaListener(topics = "${kafka.topics.transactions-corrections}", groupId = "shadow-ledger-consumer-group")
-    @Transactional
     public void consumeCorrectionTransaction(@Payload LedgerEvent event,
                                             @Header(KafkaHeaders.RECEIVED_KEY) String key,
+                                            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                            @Header(KafkaHeaders.OFFSET) long offset,
                                             Acknowledgment acknowledgment) {
         try {
-            log.info("Received correction transaction: key={}, eventId={}, accountId={}, type={}, amount={}",
-                    key, event.getEventId(), event.getAccountId(), event.getType(), event.getAmount());
+            log.info("Received correction transaction: key={}, eventId={}, accountId={}, type={}, amountMinor={}",
+                    key, event.getEventId(), event.getAccountId(), event.getType(), event.getAmountMinor());
 
-            processEvent(event);
+            // Serialized per account across both topics; the write commits before the lock is released
+            TopicPartitionOffset position = new TopicPartitionOffset(topic, partition, offset);
+            accountSequencer.runExclusive(event.getAccountId(), () -> ledgerWriter.write(event, position));
 
             // Acknowledge the message
             if (acknowledgment != null) {
@@ -73,43 +102,8 @@ public class LedgerEventConsumerService {
             }
         } catch (Exception e) {
             log.error("Error processing correction transaction: key={}", key, e);
+            // The container error handler forwards the record to the next retry topic, then the DLT
             throw new RuntimeException("Failed to process correction event", e);
         }
     }
-
-    /**
-     * Process and persist event to ledger with deduplication
-     */
-    private void processEvent(LedgerEvent event) {
-        // Deduplication check
-        if (ledgerRepository.findByEventId(event.getEventId()).isPresent()) {
-            log.warn("Duplicate event detected, skipping: eventId={}", event.getEventId());
-            return;
-        }
-
-        // Validate that balance won't go negative
-        BigDecimal currentBalance = ledgerRepository.getFinalBalance(event.getAccountId());
-        if (currentBalance == null) {
-            currentBalance = BigDecimal.ZERO;
-        }
-
-        BigDecimal newBalance = currentBalance;
-        if ("credit".equalsIgnoreCase(event.getType())) {
-            newBalance = currentBalance.add(event.getAmount());
-        } else if ("debit".equalsIgnoreCase(event.getType())) {
-            newBalance = currentBalance.subtract(event.getAmount());
-        }
-
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-            log.error("Transaction would result in negative balance: accountId={}, currentBalance={}, newBalance={}",
-                    event.getAccountId(), currentBalance, newBalance);
-            throw new IllegalStateException("Insufficient balance - transaction would result in negative balance");
-        }
-
-        // Persist to immutable ledger
-        ledgerRepository.save(event);
-        log.info("Event persisted to ledger: eventId={}, accountId={}, type={}, amount={}, newBalance={}",
-                event.getEventId(), event.getAccountId(), event.getType(), event.getAmount(), newBalance);
-    }
 }
-
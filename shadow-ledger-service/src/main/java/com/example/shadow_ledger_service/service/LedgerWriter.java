@@ -0,0 +1,385 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.model.AccountBalance;
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.example.shadow_ledger_service.repository.AccountBalanceRepository;
+import com.example.shadow_ledger_service.repository.LedgerInsertRepository;
+import com.example.shadow_ledger_service.repository.LedgerRepository;
+import com.example.shadow_ledger_service.util.BalanceDigest;
+import com.example.shadow_ledger_service.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Appends events to the ledger and keeps account_balances in step with it.
+ * Every append, its balance update and the account's bucket digest (see BalanceDigest)
+ * share one transaction, as does dropping any balance checkpoint a late event invalidates.
+ *
+ * Balance rows are read with FOR UPDATE so the read-then-insert balance check holds even
+ * across service instances; within one instance callers also go through AccountSequencer.
+ */
+@Service
+public class LedgerWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerWriter.class);
+
+    /**
+     * Adds a delta to the account balance. last_event_id / last_timestamp only move forward
+     * in (timestamp, event_id) order, so late-arriving events do not rewind them.
+     */
+    private static final String UPSERT_BALANCE_SQL = """
+        INSERT INTO account_balances (account_id, balance, last_event_id, last_timestamp, event_count, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (account_id) DO UPDATE SET
+            balance = account_balances.balance + EXCLUDED.balance,
+            last_event_id = CASE
+                WHEN (EXCLUDED.last_timestamp, EXCLUDED.last_event_id) > (account_balances.last_timestamp, account_balances.last_event_id)
+                THEN EXCLUDED.last_event_id ELSE account_balances.last_event_id END,
+            last_timestamp = CASE
+                WHEN (EXCLUDED.last_timestamp, EXCLUDED.last_event_id) > (account_balances.last_timestamp, account_balances.last_event_id)
+                THEN EXCLUDED.last_timestamp ELSE account_balances.last_timestamp END,
+            event_count = account_balances.event_count + EXCLUDED.event_count,
+            updated_at = EXCLUDED.updated_at
+    """;
+
+    /**
+     * XORs a change into a bucket digest; XOR is order-independent, so concurrent writers
+     * only need the row lock
+     */
+    private static final String UPSERT_DIGEST_SQL = """
+        INSERT INTO account_bucket_digests (bucket, digest, updated_at)
+        VALUES (?, ?, ?)
+        ON CONFLICT (bucket) DO UPDATE SET
+            digest = account_bucket_digests.digest # EXCLUDED.digest,
+            updated_at = EXCLUDED.updated_at
+    """;
+
+    private static final String DELETE_CHECKPOINTS_SQL =
+            "DELETE FROM account_balance_checkpoints WHERE account_id = ? AND ts >= ?";
+
+    private final LedgerRepository ledgerRepository;
+    private final LedgerInsertRepository ledgerInsertRepository;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConsumerOffsetStore offsetStore;
+
+    public LedgerWriter(LedgerRepository ledgerRepository,
+                        LedgerInsertRepository ledgerInsertRepository,
+                        AccountBalanceRepository accountBalanceRepository,
+                        JdbcTemplate jdbcTemplate,
+                        ConsumerOffsetStore offsetStore) {
+        this.ledgerRepository = ledgerRepository;
+        this.ledgerInsertRepository = ledgerInsertRepository;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.offsetStore = offsetStore;
+    }
+
+    /**
+     * Process and persist a single event to ledger with deduplication.
+     * The consumed offset is stored in the same transaction.
+     */
+    @Transactional
+    public void write(LedgerEvent event, TopicPartitionOffset position) {
+        // Insert first: a duplicate eventId inserts nothing, so no separate lookup is needed.
+        // If validation fails below, the insert rolls back with the transaction.
+        defaultTimestamp(event);
+        if (ledgerInsertRepository.insertIfAbsent(event) == 0) {
+            log.warn("Duplicate event detected, skipping: eventId={}", event.getEventId());
+            offsetStore.save(ConsumerOffsetStore.nextOffsets(List.of(position), 1));
+            return;
+        }
+
+        // Validate that balance won't go negative
+        Optional<AccountBalance> current = accountBalanceRepository.findForUpdate(event.getAccountId());
+        long currentBalance = current.map(balance -> Money.toMinor(balance.getBalance())).orElse(0L);
+
+        long newBalance = applyEvent(currentBalance, event);
+
+        if (newBalance < 0) {
+            log.error("Transaction would result in negative balance: accountId={}, currentBalance={}, newBalance={}",
+                    event.getAccountId(), Money.toDecimal(currentBalance), Money.toDecimal(newBalance));
+            throw new IllegalStateException("Insufficient balance - transaction would result in negative balance");
+        }
+
+        updateBalances(List.of(event));
+        updateDigests(Map.of(event.getAccountId(), new long[]{currentBalance, newBalance}));
+        current.map(AccountBalance::getLastTimestamp).ifPresent(lastTimestamp ->
+                invalidateCheckpoints(List.of(event), Map.of(event.getAccountId(), lastTimestamp)));
+        offsetStore.save(ConsumerOffsetStore.nextOffsets(List.of(position), 1));
+        log.info("Event persisted to ledger: eventId={}, accountId={}, type={}, amountMinor={}, newBalanceMinor={}",
+                event.getEventId(), event.getAccountId(), event.getType(), event.getAmountMinor(), newBalance);
+    }
+
+    /**
+     * Process a batch of events in order.
+     * Events are validated against a running balance per account. The first event that would
+     * result in a negative balance stops the batch: everything before it is persisted and its
+     * index is reported back so the caller can hand the remainder to the error handler.
+     */
+    @Transactional
+    public BatchResult writeBatch(List<LedgerEvent> events) {
+        return writeBatch(events, List.of());
+    }
+
+    /**
+     * Process a batch of events in order and store the consumed offsets of the persisted
+     * prefix in the same transaction.
+     *
+     * @param positions Kafka position of each event, parallel to events
+     */
+    @Transactional
+    public BatchResult writeBatch(List<LedgerEvent> events, List<TopicPartitionOffset> positions) {
+        Set<String> eventIds = new HashSet<>();
+        for (LedgerEvent event : events) {
+            eventIds.add(event.getEventId());
+        }
+        return writeBatch(events, positions, eventIds);
+    }
+
+    /**
+     * Process a batch of events in order, checking only dedupCandidates against the ledger.
+     * Callers that know some eventIds cannot be duplicates (see DedupFilterRegistry) leave
+     * them out. If one of them turns out to exist after all, the insert skips it and
+     * UnexpectedDuplicateException rolls the whole batch back; retry with every eventId
+     * as a candidate.
+     *
+     * @param dedupCandidates eventIds to look up in the ledger before validation
+     */
+    @Transactional
+    public BatchResult writeBatch(List<LedgerEvent> events, List<TopicPartitionOffset> positions,
+                                  Collection<String> dedupCandidates) {
+        if (events.isEmpty()) {
+            return new BatchResult(0, 0, 0, -1, null);
+        }
+
+        Set<String> accountIds = new LinkedHashSet<>();
+        for (LedgerEvent event : events) {
+            accountIds.add(event.getAccountId());
+        }
+
+        // Deduplication check - at most one query for the whole batch
+        Set<String> seen = dedupCandidates.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(ledgerRepository.findExistingEventIds(dedupCandidates));
+        int existing = seen.size();
+
+        // Opening and running balance per account in minor units, the running one updated in place
+        Map<String, long[]> balances = new HashMap<>();
+        Map<String, Long> lastTimestamps = new HashMap<>();
+        for (AccountBalance balance : accountBalanceRepository.findAllForUpdate(accountIds)) {
+            long opening = Money.toMinor(balance.getBalance());
+            balances.put(balance.getAccountId(), new long[]{opening, opening});
+            if (balance.getLastTimestamp() != null) {
+                lastTimestamps.put(balance.getAccountId(), balance.getLastTimestamp());
+            }
+        }
+
+        List<LedgerEvent> survivors = new ArrayList<>(events.size());
+        int duplicates = 0;
+        int failedIndex = -1;
+        String failureReason = null;
+
+        for (int i = 0; i < events.size(); i++) {
+            LedgerEvent event = events.get(i);
+
+            // Catches both ledger duplicates and repeats within the batch itself
+            if (!seen.add(event.getEventId())) {
+                log.warn("Duplicate event detected, skipping: eventId={}", event.getEventId());
+                duplicates++;
+                continue;
+            }
+
+            long[] running = balances.computeIfAbsent(event.getAccountId(), k -> new long[2]);
+            long newBalance = applyEvent(running[1], event);
+
+            if (newBalance < 0) {
+                log.error("Transaction would result in negative balance: accountId={}, currentBalance={}, newBalance={}",
+                        event.getAccountId(), Money.toDecimal(running[1]), Money.toDecimal(newBalance));
+                failedIndex = i;
+                failureReason = "Insufficient balance - transaction would result in negative balance";
+                break;
+            }
+
+            running[1] = newBalance;
+            survivors.add(event);
+        }
+
+        survivors.forEach(LedgerWriter::defaultTimestamp);
+        List<String> inserted = ledgerInsertRepository.insertAllIfAbsent(survivors);
+        if (inserted.size() != survivors.size()) {
+            // A non-candidate was already in the ledger, so the balances validated above are off
+            throw new UnexpectedDuplicateException(survivors.size() - inserted.size());
+        }
+        updateBalances(survivors);
+        updateDigests(balances);
+        invalidateCheckpoints(survivors, lastTimestamps);
+        offsetStore.save(ConsumerOffsetStore.nextOffsets(positions, failedIndex >= 0 ? failedIndex : events.size()));
+
+        log.info("Batch persisted to ledger: received={}, inserted={}, duplicates={}, failedIndex={}",
+                events.size(), survivors.size(), duplicates, failedIndex);
+
+        return new BatchResult(survivors.size(), duplicates, existing, failedIndex, failureReason);
+    }
+
+    private static long applyEvent(long balance, LedgerEvent event) {
+        if ("credit".equalsIgnoreCase(event.getType())) {
+            return Money.add(balance, event.getAmountMinor());
+        } else if ("debit".equalsIgnoreCase(event.getType())) {
+            return Money.subtract(balance, event.getAmountMinor());
+        }
+        return balance;
+    }
+
+    private static void defaultTimestamp(LedgerEvent event) {
+        // Auto-generate timestamp if not provided in the JSON message
+        if (event.getTimestamp() == null) {
+            event.setTimestamp(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Fold the persisted events into one balance delta per account and upsert them in one batch
+     */
+    private void updateBalances(List<LedgerEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Map<String, BalanceDelta> deltas = new LinkedHashMap<>();
+        for (LedgerEvent event : events) {
+            deltas.computeIfAbsent(event.getAccountId(), BalanceDelta::new).add(event);
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(UPSERT_BALANCE_SQL, deltas.values(), deltas.size(), (ps, delta) -> {
+            ps.setString(1, delta.accountId);
+            ps.setBigDecimal(2, Money.toDecimal(delta.amount));
+            ps.setString(3, delta.lastEventId);
+            ps.setLong(4, delta.lastTimestamp);
+            ps.setLong(5, delta.count);
+            ps.setTimestamp(6, now);
+        });
+    }
+
+    /**
+     * XOR each changed account's old and new digest terms into its bucket, one upsert per bucket
+     *
+     * @param balances opening and closing balance per account, in minor units
+     */
+    private void updateDigests(Map<String, long[]> balances) {
+        // Sorted so concurrent writers lock bucket rows in the same order
+        Map<Integer, Long> deltas = new TreeMap<>();
+        balances.forEach((accountId, change) -> {
+            if (change[0] != change[1]) {
+                long delta = BalanceDigest.term(accountId, change[0]) ^ BalanceDigest.term(accountId, change[1]);
+                deltas.merge(BalanceDigest.bucket(accountId), delta, (a, b) -> a ^ b);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(UPSERT_DIGEST_SQL, deltas.entrySet(), deltas.size(), (ps, delta) -> {
+            ps.setInt(1, delta.getKey());
+            ps.setLong(2, delta.getValue());
+            ps.setTimestamp(3, now);
+        });
+    }
+
+    /**
+     * Delete the balance checkpoints a late event is ordered before. Checkpoints are taken at
+     * an account's last position, so only events at or before its opening last timestamp
+     * can fall before one; in-order events skip the delete entirely.
+     *
+     * @param lastTimestamps last_timestamp per account before this write
+     */
+    private void invalidateCheckpoints(List<LedgerEvent> events, Map<String, Long> lastTimestamps) {
+        Map<String, Long> earliest = new LinkedHashMap<>();
+        for (LedgerEvent event : events) {
+            Long lastTimestamp = lastTimestamps.get(event.getAccountId());
+            if (lastTimestamp != null && event.getTimestamp() <= lastTimestamp) {
+                earliest.merge(event.getAccountId(), event.getTimestamp(), Math::min);
+            }
+        }
+        if (earliest.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(DELETE_CHECKPOINTS_SQL, earliest.entrySet(), earliest.size(), (ps, late) -> {
+            ps.setString(1, late.getKey());
+            ps.setLong(2, late.getValue());
+        });
+        log.info("Late events invalidated balance checkpoints for {} account(s)", earliest.size());
+    }
+
+    /**
+     * Net balance change for one account within a write
+     */
+    private static final class BalanceDelta {
+        private final String accountId;
+        private long amount;
+        private String lastEventId;
+        private long lastTimestamp = Long.MIN_VALUE;
+        private long count;
+
+        private BalanceDelta(String accountId) {
+            this.accountId = accountId;
+        }
+
+        private void add(LedgerEvent event) {
+            amount = applyEvent(amount, event);
+            count++;
+
+            // Deterministic ordering: timestamp, then eventId
+            long timestamp = event.getTimestamp();
+            if (lastEventId == null || timestamp > lastTimestamp
+                    || (timestamp == lastTimestamp && event.getEventId().compareTo(lastEventId) > 0)) {
+                lastTimestamp = timestamp;
+                lastEventId = event.getEventId();
+            }
+        }
+    }
+
+    /**
+     * Outcome of a batch write
+     *
+     * @param existing    dedup candidates found in the ledger
+     * @param failedIndex index of the first event rejected by balance validation, or -1
+     */
+    public record BatchResult(int inserted, int duplicates, int existing, int failedIndex, String failureReason) {
+
+        public boolean failed() {
+            return failedIndex >= 0;
+        }
+    }
+
+    /**
+     * An event left out of the dedup check was already in the ledger
+     */
+    public static class UnexpectedDuplicateException extends IllegalStateException {
+
+        public UnexpectedDuplicateException(int skipped) {
+            super(skipped + " event(s) already in the ledger were not in the dedup check");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Parallel-lane consumer: fans each polled batch out into one ordered lane per accountId
+ * and runs the lanes concurrently on virtual threads. Events for one account keep their
+ * partition order; different accounts in the same partition no longer wait for each other.
+ * Enabled with ledger.consumer.mode=parallel
+ *
+ * Offsets are committed only up to the lowest position that did not complete. Lanes that
+ * got further are redelivered from there and skipped by deduplication.
+ *
+ * Unlike the batch consumer, this mode is not exactly-once by offsets alone. A partition's
+ * stored offset can only advance past positions that every lane has written, so it is saved
+ * after all lanes finish, in its own transaction, not inside any lane's. A crash after some
+ * lanes committed but before the offsets were saved redelivers those lanes' events.
+ * Correctness then depends on eventId deduplication in LedgerWriter: the ledger's primary key
+ * on event_id, not the Bloom filter, which only decides where to look.
+ */
+@Service
+@ConditionalOnProperty(name = "ledger.consumer.mode", havingValue = "parallel")
+public class ParallelLaneConsumerService implements ConsumerSeekAware {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelLaneConsumerService.class);
+    private static final LogAccessor logAccessor = new LogAccessor(ParallelLaneConsumerService.class);
+
+    private final LedgerWriter ledgerWriter;
+    private final AccountSequencer accountSequencer;
+    private final ConsumerOffsetStore offsetStore;
+    private final DedupFilterRegistry dedupFilter;
+    private final ExecutorService laneExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Each running lane holds a DB connection, so cap lanes below the connection pool size
+    private final Semaphore lanePermits;
+
+    public ParallelLaneConsumerService(LedgerWriter ledgerWriter,
+                                       AccountSequencer accountSequencer,
+                                       ConsumerOffsetStore offsetStore,
+                                       DedupFilterRegistry dedupFilter,
+                                       @Value("${ledger.consumer.lane-parallelism:8}") int laneParallelism) {
+        this.ledgerWriter = ledgerWriter;
+        this.accountSequencer = accountSequencer;
+        this.offsetStore = offsetStore;
+        this.dedupFilter = dedupFilter;
+        this.lanePermits = new Semaphore(laneParallelism);
+    }
+
+    /**
+     * Resume from the offsets stored alongside the ledger rows
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        offsetStore.seekToStored(assignments, callback);
+    }
+
+    /**
+     * Consume a batch of events from transactions.raw topic
+     */
+    @KafkaListener(topics = "${kafka.topics.transactions-raw}", groupId = "shadow-ledger-consumer-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeRawBatch(List<ConsumerRecord<String, LedgerEvent>> records,
+                                Acknowledgment acknowledgment) {
+        log.info("Received raw transaction batch: size={}", records.size());
+        processBatch(records, acknowledgment);
+    }
+
+    /**
+     * Consume a batch of correction events from transactions.corrections topic
+     */
+    @KafkaListener(topics = "${kafka.topics.transactions-corrections}", groupId = "shadow-ledger-consumer-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeCorrectionBatch(List<ConsumerRecord<String, LedgerEvent>> records,
+                                       Acknowledgment acknowledgment) {
+        log.info("Received correction transaction batch: size={}", records.size());
+        processBatch(records, acknowledgment);
+    }
+
+    private void processBatch(List<ConsumerRecord<String, LedgerEvent>> records, Acknowledgment acknowledgment) {
+        // Split the deserializable prefix into per-account lanes, keeping batch order within each lane
+        Map<String, List<Integer>> lanes = new LinkedHashMap<>();
+        int poisonIndex = -1;
+        for (int i = 0; i < records.size(); i++) {
+            LedgerEvent event = records.get(i).value();
+            if (event == null) {
+                poisonIndex = i;
+                break;
+            }
+            lanes.computeIfAbsent(event.getAccountId(), k -> new ArrayList<>()).add(i);
+        }
+
+        List<Future<LaneFailure>> futures = new ArrayList<>(lanes.size());
+        for (Map.Entry<String, List<Integer>> lane : lanes.entrySet()) {
+            futures.add(laneExecutor.submit(() -> runLane(lane.getKey(), lane.getValue(), records)));
+        }
+
+        // Lowest batch position that did not complete
+        LaneFailure lowest = null;
+        for (Future<LaneFailure> future : futures) {
+            LaneFailure failure = awaitLane(future);
+            if (failure != null && (lowest == null || failure.index() < lowest.index())) {
+                lowest = failure;
+            }
+        }
+
+        // Everything before the lowest incomplete position (or the poison record) is durable
+        int completed = records.size();
+        if (poisonIndex >= 0) {
+            completed = poisonIndex;
+        }
+        if (lowest != null) {
+            completed = Math.min(completed, lowest.index());
+        }
+        List<TopicPartitionOffset> positions = new ArrayList<>(completed);
+        for (int i = 0; i < completed; i++) {
+            ConsumerRecord<String, LedgerEvent> record = records.get(i);
+            positions.add(new TopicPartitionOffset(record.topic(), record.partition(), record.offset()));
+        }
+        offsetStore.save(ConsumerOffsetStore.nextOffsets(positions, completed));
+
+        if (lowest != null) {
+            ConsumerRecord<String, LedgerEvent> failed = records.get(lowest.index());
+            log.error("Error processing batch at offset {} on {}-{}: {}",
+                    failed.offset(), failed.topic(), failed.partition(), lowest.cause().getMessage());
+            throw new BatchListenerFailedException(lowest.cause().getMessage(), lowest.cause(), lowest.index());
+        }
+
+        if (poisonIndex >= 0) {
+            ConsumerRecord<String, LedgerEvent> poison = records.get(poisonIndex);
+            DeserializationException cause = SerializationUtils.getExceptionFromHeader(
+                    poison, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, logAccessor);
+            log.error("Undeserializable record in batch at offset {} on {}-{}",
+                    poison.offset(), poison.topic(), poison.partition());
+            throw new BatchListenerFailedException("Failed to deserialize event", cause, poisonIndex);
+        }
+
+        // Acknowledge the batch
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    /**
+     * Write one account's events in order as a single transaction
+     *
+     * @return the failing batch position, or null if the whole lane was written
+     */
+    private LaneFailure runLane(String accountId, List<Integer> indexes,
+                                List<ConsumerRecord<String, LedgerEvent>> records) throws InterruptedException {
+        List<ConsumerRecord<String, LedgerEvent>> laneRecords = new ArrayList<>(indexes.size());
+        List<LedgerEvent> events = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            laneRecords.add(records.get(index));
+            events.add(records.get(index).value());
+        }
+        Set<String> candidates = dedupFilter.dedupCandidates(laneRecords);
+
+        lanePermits.acquire();
+        try {
+            LedgerWriter.BatchResult result = accountSequencer.callExclusive(List.of(accountId), () -> {
+                try {
+                    LedgerWriter.BatchResult filtered = ledgerWriter.writeBatch(events, List.of(), candidates);
+                    dedupFilter.recordConfirmed(filtered.existing());
+                    return filtered;
+                } catch (LedgerWriter.UnexpectedDuplicateException e) {
+                    // The filter only covers recent events; fall back to checking every eventId
+                    log.warn("Dedup filter missed a duplicate, retrying lane with full dedup: accountId={}", accountId);
+                    dedupFilter.recordMiss();
+                    return ledgerWriter.writeBatch(events);
+                }
+            });
+            dedupFilter.recordWritten(laneRecords.subList(0, result.failed() ? result.failedIndex() : laneRecords.size()));
+            if (result.failed()) {
+                return new LaneFailure(indexes.get(result.failedIndex()),
+                        new IllegalStateException(result.failureReason()));
+            }
+            return null;
+        } catch (RuntimeException e) {
+            // The lane transaction rolled back, so nothing from it was written
+            log.error("Lane failed: accountId={}", accountId, e);
+            return new LaneFailure(indexes.get(0), e);
+        } finally {
+            lanePermits.release();
+        }
+    }
+
+    private LaneFailure awaitLane(Future<LaneFailure> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for processing lanes", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Processing lane failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        laneExecutor.shutdown();
+    }
+
+    private record LaneFailure(int index, Throwable cause) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.shadow_ledger_service.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money as a primitive long of minor units (cents).
+ * Matches the ledger's NUMERIC(19, 2) columns. Arithmetic is overflow-checked and never
+ * allocates; BigDecimal is only used to convert at the JSON and JDBC edges.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Exact conversion; amounts with more than two decimal places are rejected
+     *
+     * @throws ArithmeticException if the amount has sub-cent digits or does not fit in a long
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("amount is required");
+        }
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Parse a decimal string such as "-12.5", "100.00" or "1E+2" straight to minor units
+     *
+     * @throws NumberFormatException    if the text is not a decimal
+     * @throws ArithmeticException      if it has sub-cent digits or overflows
+     */
+    public static long parse(CharSequence text) {
+        String value = text.toString();
+        return parse(value.toCharArray(), 0, value.length());
+    }
+
+    /**
+     * Parse a decimal held in a char buffer, e.g. a JSON parser's token text. An exponent is
+     * accepted as long as the value is still a whole number of minor units.
+     */
+    public static long parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (length > 0 && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        // Significant digits without trailing zeros; those are only counted, so "12.3400" and
+        // "1000E-3" do not overflow and units never ends in a zero
+        long units = 0;
+        int trailingZeros = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (c == 'e' || c == 'E') {
+                break;
+            }
+            if (c < '0' || c > '9') {
+                throw notDecimal(chars, offset, length);
+            }
+            digits++;
+            if (fraction) {
+                fractionDigits++;
+            }
+            if (c == '0') {
+                trailingZeros++;
+                continue;
+            }
+            for (; trailingZeros > 0; trailingZeros--) {
+                units = Math.multiplyExact(units, 10);
+            }
+            units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+        }
+        if (digits == 0) {
+            throw notDecimal(chars, offset, length);
+        }
+
+        int exponent = 0;
+        if (i < end) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                throw notDecimal(chars, offset, length);
+            }
+            for (; i < end; i++) {
+                char c = chars[i];
+                if (c < '0' || c > '9') {
+                    throw notDecimal(chars, offset, length);
+                }
+                // Anything this large overflows or has sub-cent digits either way
+                if (exponent < 100_000) {
+                    exponent = exponent * 10 + (c - '0');
+                }
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        if (units == 0) {
+            return 0;
+        }
+        int shift = trailingZeros - fractionDigits + exponent + SCALE;
+        if (shift < 0) {
+            throw new ArithmeticException("Amount has more than " + SCALE + " decimal places: "
+                    + new String(chars, offset, length));
+        }
+        for (; shift > 0; shift--) {
+            units = Math.multiplyExact(units, 10);
+        }
+        return negative ? -units : units;
+    }
+
+    private static NumberFormatException notDecimal(char[] chars, int offset, int length) {
+        return new NumberFormatException("Not a decimal amount: " + new String(chars, offset, length));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.shadow_ledger_service.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Jackson mapping between a JSON decimal amount ("amount": 100.50) and minor units.
+ * Numbers are parsed from the token text, so no BigDecimal is created on the way in.
+ */
+public final class MoneyJson {
+
+    private MoneyJson() {
+    }
+
+    public static class Deserializer extends JsonDeserializer<Long> {
+
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            try {
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    return Math.multiplyExact(p.getLongValue(), 100L);
+                }
+                if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_STRING) {
+                    return Money.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                }
+            } catch (ArithmeticException | NumberFormatException e) {
+                return (Long) ctxt.handleWeirdStringValue(Long.class, p.getText(), e.getMessage());
+            }
+            return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+    }
+
+    public static class Serializer extends JsonSerializer<Long> {
+
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(Money.toDecimal(value));
+        }
+    }
+}
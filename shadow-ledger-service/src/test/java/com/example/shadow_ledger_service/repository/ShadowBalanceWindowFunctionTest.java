@@ -1,6 +1,7 @@
 package com.example.shadow_ledger_service.repository;
 
 import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.example.shadow_ledger_service.util.Money;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -33,7 +34,7 @@ public class ShadowBalanceWindowFunctionTest {
         event1.setEventId("E-WIN-001");
         event1.setAccountId(accountId);
         event1.setType("credit");
-        event1.setAmount(new BigDecimal("1000.00"));
+        event1.setAmountMinor(Money.parse("1000.00"));
         event1.setTimestamp(1000L);
         ledgerRepository.save(event1);
 
@@ -42,7 +43,7 @@ public class ShadowBalanceWindowFunctionTest {
         event2.setEventId("E-WIN-002");
         event2.setAccountId(accountId);
         event2.setType("debit");
-        event2.setAmount(new BigDecimal("250.00"));
+        event2.setAmountMinor(Money.parse("250.00"));
         event2.setTimestamp(2000L);
         ledgerRepository.save(event2);
 
@@ -51,7 +52,7 @@ public class ShadowBalanceWindowFunctionTest {
         event3.setEventId("E-WIN-003");
         event3.setAccountId(accountId);
         event3.setType("credit");
-        event3.setAmount(new BigDecimal("500.00"));
+        event3.setAmountMinor(Money.parse("500.00"));
         event3.setTimestamp(3000L);
         ledgerRepository.save(event3);
 
@@ -60,7 +61,7 @@ public class ShadowBalanceWindowFunctionTest {
         event4.setEventId("E-WIN-004");
         event4.setAccountId(accountId);
         event4.setType("debit");
-        event4.setAmount(new BigDecimal("100.00"));
+        event4.setAmountMinor(Money.parse("100.00"));
         event4.setTimestamp(4000L);
         ledgerRepository.save(event4);
 
@@ -96,7 +97,7 @@ public class ShadowBalanceWindowFunctionTest {
         event1.setEventId("E-ORDER-002"); // Later alphabetically
         event1.setAccountId(accountId);
         event1.setType("credit");
-        event1.setAmount(new BigDecimal("200.00"));
+        event1.setAmountMinor(Money.parse("200.00"));
         event1.setTimestamp(timestamp);
         ledgerRepository.save(event1);
 
@@ -104,7 +105,7 @@ public class ShadowBalanceWindowFunctionTest {
         event2.setEventId("E-ORDER-001"); // Earlier alphabetically
         event2.setAccountId(accountId);
         event2.setType("credit");
-        event2.setAmount(new BigDecimal("100.00"));
+        event2.setAmountMinor(Money.parse("100.00"));
         event2.setTimestamp(timestamp);
         ledgerRepository.save(event2);
 
@@ -129,7 +130,7 @@ public class ShadowBalanceWindowFunctionTest {
         event1.setEventId("E-CREDIT-001");
         event1.setAccountId(accountId);
         event1.setType("credit");
-        event1.setAmount(new BigDecimal("100.00"));
+        event1.setAmountMinor(Money.parse("100.00"));
         event1.setTimestamp(1000L);
         ledgerRepository.save(event1);
 
@@ -137,7 +138,7 @@ public class ShadowBalanceWindowFunctionTest {
         event2.setEventId("E-CREDIT-002");
         event2.setAccountId(accountId);
         event2.setType("credit");
-        event2.setAmount(new BigDecimal("200.00"));
+        event2.setAmountMinor(Money.parse("200.00"));
         event2.setTimestamp(2000L);
         ledgerRepository.save(event2);
 
@@ -154,7 +155,7 @@ public class ShadowBalanceWindowFunctionTest {
         event1.setEventId("E-DEBIT-INIT");
         event1.setAccountId(accountId);
         event1.setType("credit");
-        event1.setAmount(new BigDecimal("1000.00"));
+        event1.setAmountMinor(Money.parse("1000.00"));
         event1.setTimestamp(1000L);
         ledgerRepository.save(event1);
 
@@ -162,7 +163,7 @@ public class ShadowBalanceWindowFunctionTest {
         event2.setEventId("E-DEBIT-001");
         event2.setAccountId(accountId);
         event2.setType("debit");
-        event2.setAmount(new BigDecimal("100.00"));
+        event2.setAmountMinor(Money.parse("100.00"));
         event2.setTimestamp(2000L);
         ledgerRepository.save(event2);
 
@@ -170,7 +171,7 @@ public class ShadowBalanceWindowFunctionTest {
         event3.setEventId("E-DEBIT-002");
         event3.setAccountId(accountId);
         event3.setType("debit");
-        event3.setAmount(new BigDecimal("200.00"));
+        event3.setAmountMinor(Money.parse("200.00"));
         event3.setTimestamp(3000L);
         ledgerRepository.save(event3);
 
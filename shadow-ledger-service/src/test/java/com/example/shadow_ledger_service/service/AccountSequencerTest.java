@@ -0,0 +1,90 @@
+package com.example.shadow_ledger_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Account Sequencer Test
+ * Tests that writes for one account are serialized while other accounts proceed in parallel
+ */
+public class AccountSequencerTest {
+
+    @Test
+    public void testSameAccount_IsSerialized() throws Exception {
+        AccountSequencer sequencer = new AccountSequencer(16);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> sequencer.runExclusive("A10", () -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    inside.decrementAndGet();
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(maxInside.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDifferentAccounts_RunInParallel() throws Exception {
+        AccountSequencer sequencer = new AccountSequencer(1024);
+        String first = "A10";
+        String second = "A20";
+        assertThat(sequencer.stripeOf(first)).isNotEqualTo(sequencer.stripeOf(second));
+
+        // Both actions must be inside their locks at the same time to get past the latch
+        CountDownLatch bothInside = new CountDownLatch(2);
+        AtomicInteger metInside = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> a = executor.submit(() -> sequencer.runExclusive(first, () -> awaitQuietly(bothInside, metInside)));
+            Future<?> b = executor.submit(() -> sequencer.runExclusive(second, () -> awaitQuietly(bothInside, metInside)));
+            a.get(10, TimeUnit.SECONDS);
+            b.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(metInside.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMultiAccountLock_ReturnsActionResult() {
+        AccountSequencer sequencer = new AccountSequencer(4);
+
+        String result = sequencer.callExclusive(List.of("A10", "A20", "A30", "A10"), () -> "done");
+
+        assertThat(result).isEqualTo("done");
+    }
+
+    private void awaitQuietly(CountDownLatch latch, AtomicInteger metInside) {
+        latch.countDown();
+        try {
+            if (latch.await(5, TimeUnit.SECONDS)) {
+                metInside.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dedup Filter Registry Test
+ * Tests that filters are rebuilt off the consumer thread and events keep the full dedup path meanwhile
+ */
+public class DedupFilterRegistryTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("transactions.raw", 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Consumer<String, LedgerEvent> consumer;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DedupFilterRegistry registry;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new DedupFilterRegistry(jdbcTemplate, meterRegistry, true, 1000, 0.01);
+        when(consumer.partitionsFor("transactions.raw"))
+                .thenReturn(List.of(new PartitionInfo("transactions.raw", 0, null, null, null)));
+
+        // account_balances scan, held until the test releases it
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString(1)).thenReturn("A10");
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        // the partition's recent ledger rows
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString(1)).thenReturn("E-OLD");
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    public void testAssignmentReturnsBeforeRebuildAndFallsBackToFullDedup() throws Exception {
+        registry.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        // Rebuild still blocked: every event is a candidate, and writes reach the filter being built
+        assertThat(registry.dedupCandidates(List.of(record("E-NEW"), record("E-OLD")))).containsExactlyInAnyOrder("E-NEW", "E-OLD");
+        registry.recordWritten(List.of(record("E-DURING")));
+
+        release.countDown();
+        awaitReady();
+
+        assertThat(registry.dedupCandidates(List.of(record("E-NEW"), record("E-OLD"), record("E-DURING"))))
+                .contains("E-OLD", "E-DURING")
+                .doesNotContain("E-NEW");
+        assertThat(meterRegistry.get("ledger.dedup.filter.checked").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    public void testRevokedDuringRebuildIsNotPublished() throws Exception {
+        TopicPartition other = new TopicPartition("transactions.other", 0);
+        when(consumer.partitionsFor("transactions.other"))
+                .thenReturn(List.of(new PartitionInfo("transactions.other", 0, null, null, null)));
+        registry.onPartitionsAssigned(consumer, List.of(PARTITION));
+        registry.onPartitionsRevokedAfterCommit(consumer, List.of(PARTITION));
+        // Rebuilds run in order, so once this one is ready the revoked one has finished
+        registry.onPartitionsAssigned(consumer, List.of(other));
+
+        release.countDown();
+        awaitReady();
+
+        assertThat(registry.dedupCandidates(List.of(record("E-NEW")))).containsExactly("E-NEW");
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private void awaitReady() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("ledger.dedup.filter.memory").gauge().value() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static ConsumerRecord<String, LedgerEvent> record(String eventId) {
+        LedgerEvent event = new LedgerEvent();
+        event.setEventId(eventId);
+        event.setAccountId("A10");
+        return new ConsumerRecord<>("transactions.raw", 0, 0L, "A10", event);
+    }
+}
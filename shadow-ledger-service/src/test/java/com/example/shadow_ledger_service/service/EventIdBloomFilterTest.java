@@ -0,0 +1,58 @@
+package com.example.shadow_ledger_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dedup Filter Test
+ * Tests that the eventId filter never misses recent ids and stays near its false-positive target
+ */
+public class EventIdBloomFilterTest {
+
+    @Test
+    public void testNoFalseNegativesWithinWindow() {
+        EventIdBloomFilter filter = new EventIdBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("E-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("E-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateNearTarget() {
+        EventIdBloomFilter filter = new EventIdBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("E-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("OTHER-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Both generations are probed, so allow up to twice the per-generation target
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    public void testRotationKeepsPreviousGenerationAndBoundsMemory() {
+        EventIdBloomFilter filter = new EventIdBloomFilter(1_000, 0.01);
+        long size = filter.sizeInBytes();
+
+        for (int i = 0; i < 1_500; i++) {
+            filter.put("E-" + i);
+        }
+
+        // The first 1000 ids moved to the previous generation and are still covered
+        for (int i = 0; i < 1_500; i++) {
+            assertThat(filter.mightContain("E-" + i)).isTrue();
+        }
+        assertThat(filter.sizeInBytes()).isEqualTo(size);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.model.AccountBalance;
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.example.shadow_ledger_service.repository.AccountBalanceRepository;
+import com.example.shadow_ledger_service.repository.LedgerInsertRepository;
+import com.example.shadow_ledger_service.repository.LedgerRepository;
+import com.example.shadow_ledger_service.util.BalanceDigest;
+import com.example.shadow_ledger_service.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * Batch Write Test
+ * Tests set-based deduplication and per-account balance validation in batch mode
+ */
+public class LedgerBatchWriteTest {
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private LedgerInsertRepository ledgerInsertRepository;
+
+    @Mock
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ConsumerOffsetStore offsetStore;
+
+    private LedgerWriter ledgerWriter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ledgerWriter = new LedgerWriter(ledgerRepository, ledgerInsertRepository, accountBalanceRepository,
+                jdbcTemplate, offsetStore);
+        // Every row inserts unless a test says otherwise
+        when(ledgerInsertRepository.insertAllIfAbsent(any())).thenAnswer(invocation ->
+                invocation.<List<LedgerEvent>>getArgument(0).stream().map(LedgerEvent::getEventId).toList());
+    }
+
+    @Test
+    public void testBatchWrite_SkipsLedgerAndInBatchDuplicates() {
+        // Arrange - E-2 already in the ledger, E-1 repeated within the batch
+        when(ledgerRepository.findExistingEventIds(any())).thenReturn(List.of("E-2"));
+        when(accountBalanceRepository.findAllForUpdate(any())).thenReturn(List.of());
+
+        List<LedgerEvent> events = List.of(
+            event("E-1", "A10", "credit", "100.00"),
+            event("E-2", "A10", "credit", "50.00"),
+            event("E-1", "A10", "credit", "100.00"),
+            event("E-3", "A20", "credit", "10.00")
+        );
+
+        // Act
+        LedgerWriter.BatchResult result = ledgerWriter.writeBatch(events);
+
+        // Assert
+        assertThat(result.failed()).isFalse();
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.duplicates()).isEqualTo(2);
+        assertThat(insertedEventIds()).containsExactly("E-1", "E-3");
+
+        // One dedup query for the whole batch
+        verify(ledgerRepository, times(1)).findExistingEventIds(any());
+        verify(ledgerRepository, never()).findByEventId(anyString());
+    }
+
+    @Test
+    public void testBatchWrite_StopsAtFirstNegativeBalance() {
+        // Arrange - A10 starts at 100, the second debit overdraws it
+        AccountBalance balance = new AccountBalance();
+        balance.setAccountId("A10");
+        balance.setBalance(new BigDecimal("100.00"));
+        when(ledgerRepository.findExistingEventIds(any())).thenReturn(List.of());
+        when(accountBalanceRepository.findAllForUpdate(any())).thenReturn(List.of(balance));
+
+        List<LedgerEvent> events = List.of(
+            event("E-1", "A10", "debit", "60.00"),
+            event("E-2", "A20", "credit", "10.00"),
+            event("E-3", "A10", "debit", "60.00"),
+            event("E-4", "A20", "credit", "10.00")
+        );
+
+        // Act
+        LedgerWriter.BatchResult result = ledgerWriter.writeBatch(events);
+
+        // Assert - everything before the failing record is persisted
+        assertThat(result.failed()).isTrue();
+        assertThat(result.failedIndex()).isEqualTo(2);
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(insertedEventIds()).containsExactly("E-1", "E-2");
+    }
+
+    @Test
+    public void testBatchWrite_EmptyBatch() {
+        LedgerWriter.BatchResult result = ledgerWriter.writeBatch(List.of());
+
+        assertThat(result.failed()).isFalse();
+        assertThat(result.inserted()).isZero();
+        verifyNoInteractions(ledgerRepository, ledgerInsertRepository, accountBalanceRepository, jdbcTemplate);
+    }
+
+    @Test
+    public void testBatchWrite_NoCandidatesSkipsDedupQuery() {
+        // Arrange - the dedup filter cleared every event
+        when(accountBalanceRepository.findAllForUpdate(any())).thenReturn(List.of());
+
+        List<LedgerEvent> events = List.of(
+            event("E-1", "A10", "credit", "100.00"),
+            event("E-2", "A20", "credit", "50.00")
+        );
+
+        // Act
+        LedgerWriter.BatchResult result = ledgerWriter.writeBatch(events, List.of(), Set.of());
+
+        // Assert
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(insertedEventIds()).containsExactly("E-1", "E-2");
+        verify(ledgerRepository, never()).findExistingEventIds(any());
+    }
+
+    @Test
+    public void testBatchWrite_UnexpectedDuplicateRollsBack() {
+        // Arrange - E-2 was not a candidate but is already in the ledger
+        when(accountBalanceRepository.findAllForUpdate(any())).thenReturn(List.of());
+        when(ledgerInsertRepository.insertAllIfAbsent(any())).thenReturn(List.of("E-1"));
+
+        List<LedgerEvent> events = List.of(
+            event("E-1", "A10", "credit", "100.00"),
+            event("E-2", "A10", "credit", "50.00")
+        );
+
+        // Act & Assert - balances must not be updated from the stale validation
+        assertThatThrownBy(() -> ledgerWriter.writeBatch(events, List.of(), Set.of()))
+            .isInstanceOf(LedgerWriter.UnexpectedDuplicateException.class);
+        verifyNoInteractions(jdbcTemplate, offsetStore);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchWrite_UpdatesBucketDigestsFromOpeningToClosingBalance() {
+        // Arrange - A10 opens at 100.00 and ends at 75.00; A20 is a new account
+        AccountBalance balance = new AccountBalance();
+        balance.setAccountId("A10");
+        balance.setBalance(new BigDecimal("100.00"));
+        when(ledgerRepository.findExistingEventIds(any())).thenReturn(List.of());
+        when(accountBalanceRepository.findAllForUpdate(any())).thenReturn(List.of(balance));
+
+        List<LedgerEvent> events = List.of(
+            event("E-1", "A10", "debit", "50.00"),
+            event("E-2", "A10", "credit", "25.00"),
+            event("E-3", "A20", "credit", "5.00")
+        );
+
+        // Act
+        ledgerWriter.writeBatch(events);
+
+        // Assert - one XOR delta per bucket: old term out, new term in
+        ArgumentCaptor<Collection<Map.Entry<Integer, Long>>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(contains("account_bucket_digests"), captor.capture(), anyInt(), any());
+
+        Map<Integer, Long> expected = new HashMap<>();
+        expected.merge(BalanceDigest.bucket("A10"),
+                BalanceDigest.term("A10", 10000) ^ BalanceDigest.term("A10", 7500), (a, b) -> a ^ b);
+        expected.merge(BalanceDigest.bucket("A20"), BalanceDigest.term("A20", 500), (a, b) -> a ^ b);
+        assertThat(captor.getValue()).containsExactlyInAnyOrderElementsOf(expected.entrySet());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchWrite_LateEventInvalidatesCheckpoints() {
+        // Arrange - A10's last event is at 5000; E-1 arrives late at 2000, E-2 is in order
+        AccountBalance balance = new AccountBalance();
+        balance.setAccountId("A10");
+        balance.setBalance(new BigDecimal("100.00"));
+        balance.setLastTimestamp(5000L);
+        when(ledgerRepository.findExistingEventIds(any())).thenReturn(List.of());
+        when(accountBalanceRepository.findAllForUpdate(any())).thenReturn(List.of(balance));
+
+        LedgerEvent late = event("E-1", "A10", "credit", "10.00");
+        late.setTimestamp(2000L);
+        LedgerEvent inOrder = event("E-2", "A10", "credit", "10.00");
+        inOrder.setTimestamp(6000L);
+        LedgerEvent newAccount = event("E-3", "A20", "credit", "10.00");
+
+        // Act
+        ledgerWriter.writeBatch(List.of(late, inOrder, newAccount));
+
+        // Assert - only A10's checkpoints from the late event's timestamp on are dropped
+        ArgumentCaptor<Collection<Map.Entry<String, Long>>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(contains("account_balance_checkpoints"), captor.capture(), anyInt(), any());
+        assertThat(captor.getValue()).containsExactly(Map.entry("A10", 2000L));
+    }
+
+    @Test
+    public void testBatchWrite_InOrderEventsSkipCheckpointDelete() {
+        AccountBalance balance = new AccountBalance();
+        balance.setAccountId("A10");
+        balance.setBalance(new BigDecimal("100.00"));
+        balance.setLastTimestamp(500L);
+        when(ledgerRepository.findExistingEventIds(any())).thenReturn(List.of());
+        when(accountBalanceRepository.findAllForUpdate(any())).thenReturn(List.of(balance));
+
+        ledgerWriter.writeBatch(List.of(event("E-1", "A10", "credit", "10.00")));
+
+        verify(jdbcTemplate, never()).batchUpdate(contains("account_balance_checkpoints"), anyCollection(), anyInt(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> insertedEventIds() {
+        ArgumentCaptor<List<LedgerEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerInsertRepository, atLeastOnce()).insertAllIfAbsent(captor.capture());
+        return captor.getValue().stream().map(LedgerEvent::getEventId).toList();
+    }
+
+    private LedgerEvent event(String eventId, String accountId, String type, String amount) {
+        LedgerEvent event = new LedgerEvent();
+        event.setEventId(eventId);
+        event.setAccountId(accountId);
+        event.setType(type);
+        event.setAmountMinor(Money.parse(amount));
+        event.setTimestamp(1000L);
+        return event;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.config.CustomJsonDeserializer;
+import com.example.shadow_ledger_service.config.LedgerEventDeserializer;
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Streaming Deserializer Test
+ * Tests that the streaming LedgerEvent decoder matches the reflective JSON deserializer
+ */
+public class LedgerEventDeserializerTest {
+
+    private final LedgerEventDeserializer streaming = new LedgerEventDeserializer();
+    private final CustomJsonDeserializer<LedgerEvent> reflective = new CustomJsonDeserializer<>(LedgerEvent.class);
+
+    @Test
+    public void testMatchesReflectiveDeserializer() {
+        String[] payloads = {
+            "{\"eventId\":\"E1\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":100.50,\"timestamp\":1735561800000}",
+            "{\"eventId\":\"E2\",\"accountId\":\"A10\",\"type\":\"debit\",\"amount\":25,\"timestamp\":1735561800001}",
+            "{\"amount\":\"7.1\",\"type\":\"credit\",\"accountId\":\"A20\",\"eventId\":\"E3\"}",
+            "{\"eventId\":\"E4\",\"accountId\":\"A30\",\"type\":\"credit\",\"amount\":1.00,\"source\":{\"system\":\"cbs\",\"tags\":[1,2]}}"
+        };
+
+        for (String payload : payloads) {
+            LedgerEvent expected = reflective.deserialize("transactions.raw", bytes(payload));
+            LedgerEvent actual = streaming.deserialize("transactions.raw", bytes(payload));
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testTypeConstantsAreShared() {
+        LedgerEvent first = streaming.deserialize("transactions.raw",
+                bytes("{\"eventId\":\"E1\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":1}"));
+        LedgerEvent second = streaming.deserialize("transactions.raw",
+                bytes("{\"eventId\":\"E2\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":2}"));
+
+        assertThat(first.getType()).isSameAs(second.getType());
+        assertThat(first.getAmountMinor()).isEqualTo(100L);
+    }
+
+    @Test
+    public void testRejectsMalformedPayloads() {
+        assertThatThrownBy(() -> streaming.deserialize("transactions.raw", bytes("not json")))
+            .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> streaming.deserialize("transactions.raw",
+                bytes("{\"eventId\":\"E1\",\"amount\":1.005}")))
+            .isInstanceOf(SerializationException.class);
+        assertThat(streaming.deserialize("transactions.raw", new byte[0])).isNull();
+    }
+
+    @Test
+    public void testRejectsMissingOrNonPositiveAmount() {
+        String[] payloads = {
+            "{\"eventId\":\"E1\",\"accountId\":\"A10\",\"type\":\"credit\"}",
+            "{\"eventId\":\"E1\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":null}",
+            "{\"eventId\":\"E1\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":0}",
+            "{\"eventId\":\"E1\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":-5.00}"
+        };
+
+        // Rejected here so the record goes to the DLT instead of becoming a zero-amount ledger row
+        for (String payload : payloads) {
+            assertThatThrownBy(() -> streaming.deserialize("transactions.raw", bytes(payload)))
+                .isInstanceOf(SerializationException.class);
+        }
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
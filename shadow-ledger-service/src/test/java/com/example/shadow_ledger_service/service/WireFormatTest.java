@@ -0,0 +1,103 @@
+package com.example.shadow_ledger_service.service;
+
+import com.example.shadow_ledger_service.config.LedgerEventCodec;
+import com.example.shadow_ledger_service.config.WireFormatDeserializer;
+import com.example.shadow_ledger_service.config.WireFormatSerializer;
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Wire Format Test
+ * Tests that JSON and binary ledger events are both readable, selected by the content-type header
+ */
+public class WireFormatTest {
+
+    private final WireFormatDeserializer deserializer = new WireFormatDeserializer();
+    private final WireFormatSerializer serializer = new WireFormatSerializer();
+
+    @Test
+    public void testBinaryRoundTripIsSmallerThanJson() {
+        LedgerEvent event = event("E1", "A10", "debit", -12_345L, 1735561800000L);
+
+        byte[] binary = LedgerEventCodec.encode(event);
+        LedgerEvent decoded = deserializer.deserialize("transactions.raw", binaryHeaders(), binary);
+
+        assertThat(binary[0]).isEqualTo(LedgerEventCodec.VERSION);
+        assertThat(decoded).isEqualTo(event);
+        assertThat(binary.length).isLessThan(serializer.serialize("transactions.raw", event).length / 3);
+    }
+
+    @Test
+    public void testRecordsWithoutHeaderAreJson() {
+        byte[] json = "{\"eventId\":\"E2\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":5.25}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        LedgerEvent decoded = deserializer.deserialize("transactions.raw", new RecordHeaders(), json);
+
+        assertThat(decoded.getEventId()).isEqualTo("E2");
+        assertThat(decoded.getAmountMinor()).isEqualTo(525L);
+    }
+
+    @Test
+    public void testCorrectionReasonIsSkipped() {
+        // version 1, flags debit|timestamp|reason, "C1", "A1", zigzag(100) = 200, timestamp 5, "fix"
+        byte[] correction = {1, 0x07, 2, 'C', '1', 2, 'A', '1', (byte) 0xC8, 0x01, 5, 3, 'f', 'i', 'x'};
+
+        LedgerEvent decoded = deserializer.deserialize("transactions.corrections", binaryHeaders(), correction);
+
+        assertThat(decoded).isEqualTo(event("C1", "A1", "debit", 100L, 5L));
+    }
+
+    @Test
+    public void testUnknownVersionAndTruncatedRecordsAreRejected() {
+        byte[] binary = LedgerEventCodec.encode(event("E3", "A10", "credit", 100L, null));
+        byte[] futureVersion = binary.clone();
+        futureVersion[0] = 2;
+
+        assertThatThrownBy(() -> deserializer.deserialize("transactions.raw", binaryHeaders(), futureVersion))
+            .isInstanceOf(SerializationException.class)
+            .hasMessageContaining("version");
+        assertThatThrownBy(() -> deserializer.deserialize("transactions.raw", binaryHeaders(),
+                java.util.Arrays.copyOf(binary, 4)))
+            .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    public void testForwardedEventsKeepTheirFormat() {
+        LedgerEvent event = event("E4", "A10", "credit", 100L, 1L);
+
+        Headers binary = binaryHeaders();
+        assertThat(serializer.serialize("transactions.raw.retry-0", binary, event))
+            .isEqualTo(LedgerEventCodec.encode(event));
+
+        Headers json = new RecordHeaders();
+        byte[] value = serializer.serialize("transactions.raw.retry-0", json, event);
+        assertThat(new String(json.lastHeader(LedgerEventCodec.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8))
+            .isEqualTo(LedgerEventCodec.JSON_CONTENT_TYPE);
+        assertThat(deserializer.deserialize("transactions.raw.retry-0", json, value)).isEqualTo(event);
+    }
+
+    private Headers binaryHeaders() {
+        Headers headers = new RecordHeaders();
+        LedgerEventCodec.setContentType(headers, LedgerEventCodec.BINARY_CONTENT_TYPE);
+        return headers;
+    }
+
+    private LedgerEvent event(String eventId, String accountId, String type, long amountMinor, Long timestamp) {
+        LedgerEvent event = new LedgerEvent();
+        event.setEventId(eventId);
+        event.setAccountId(accountId);
+        event.setType(type);
+        event.setAmountMinor(amountMinor);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.shadow_ledger_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Balance Digest Test
+ * Tests the bucket and digest definitions shared with the drift service and the schema backfill
+ */
+public class BalanceDigestTest {
+
+    @Test
+    public void testKnownValues() {
+        // md5("ACC-1001") starts eb9..., md5("ACC-1001:150000") starts 2184b96d...
+        assertThat(BalanceDigest.bucket("ACC-1001")).isEqualTo(0xEB9);
+        assertThat(BalanceDigest.term("ACC-1001", 150000)).isEqualTo(2415259178776075304L);
+        assertThat(BalanceDigest.term("ACC-1001", -250)).isEqualTo(5819680602628994128L);
+    }
+
+    @Test
+    public void testZeroBalanceContributesNothing() {
+        assertThat(BalanceDigest.term("ACC-1001", 0)).isZero();
+    }
+
+    @Test
+    public void testDigestUpdatesInPlace() {
+        long a = BalanceDigest.term("A10", 10000);
+        long b = BalanceDigest.term("A20", 500);
+
+        // A10 moves from 100.00 to 75.00: XOR out the old term, XOR in the new one
+        long updated = (a ^ b) ^ a ^ BalanceDigest.term("A10", 7500);
+
+        assertThat(updated).isEqualTo(BalanceDigest.term("A20", 500) ^ BalanceDigest.term("A10", 7500));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.shadow_ledger_service.util;
+
+import com.example.shadow_ledger_service.model.LedgerEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Money Test
+ * Tests minor-unit conversion, overflow checks and the JSON amount mapping
+ */
+public class MoneyTest {
+
+    @Test
+    public void testParseDecimalStrings() {
+        assertThat(Money.parse("100.00")).isEqualTo(10000L);
+        assertThat(Money.parse("100.5")).isEqualTo(10050L);
+        assertThat(Money.parse("7")).isEqualTo(700L);
+        assertThat(Money.parse("-0.01")).isEqualTo(-1L);
+        assertThat(Money.parse("12.3400")).isEqualTo(1234L);
+    }
+
+    @Test
+    public void testParseExponentNotation() {
+        assertThat(Money.parse("1E+2")).isEqualTo(10000L);
+        assertThat(Money.parse("1e5")).isEqualTo(10000000L);
+        assertThat(Money.parse("1.2345E2")).isEqualTo(12345L);
+        assertThat(Money.parse("-5E-2")).isEqualTo(-5L);
+        assertThat(Money.parse("1000E-3")).isEqualTo(100L);
+        assertThat(Money.parse("0E-10")).isEqualTo(0L);
+        assertThatThrownBy(() -> Money.parse("1E-3")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("1E400")).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void testRejectsSubCentAndMalformedAmounts() {
+        assertThatThrownBy(() -> Money.parse("1.005")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.toMinor(new BigDecimal("1.005"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("1e")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("E5")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("1e+2.5")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void testArithmeticIsOverflowChecked() {
+        assertThat(Money.add(150L, 250L)).isEqualTo(400L);
+        assertThat(Money.subtract(150L, 250L)).isEqualTo(-100L);
+        assertThatThrownBy(() -> Money.add(Long.MAX_VALUE, 1L)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("99999999999999999999.99")).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void testDecimalRoundTrip() {
+        assertThat(Money.toMinor(new BigDecimal("999999.99"))).isEqualTo(99999999L);
+        assertThat(Money.toDecimal(99999999L)).isEqualByComparingTo("999999.99");
+        assertThat(Money.toDecimal(5L).scale()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLedgerEventJsonAmount() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        LedgerEvent decimal = mapper.readValue(
+                "{\"eventId\":\"E1\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":100.50}", LedgerEvent.class);
+        LedgerEvent integer = mapper.readValue(
+                "{\"eventId\":\"E2\",\"accountId\":\"A10\",\"type\":\"credit\",\"amount\":100}", LedgerEvent.class);
+
+        assertThat(decimal.getAmountMinor()).isEqualTo(10050L);
+        assertThat(integer.getAmountMinor()).isEqualTo(10000L);
+        assertThat(mapper.writeValueAsString(decimal)).contains("\"amount\":100.50");
+    }
+}